@@ -0,0 +1,78 @@
+/*
+This is the BenchmarkHouse class for the Haunted House benchmarks.  It sits in the default package next to the game
+classes, so it can use them directly on behalf of the JMH benchmarks.
+*/
+
+import hauntedhouse.bench.HouseWorkload;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The BenchmarkHouse class implements {@link HouseWorkload} with the real game classes.  Houses bigger than the
+ * real one are made by {@link HouseGenerator} with a fixed seed, so every run measures the same house.
+ */
+public class BenchmarkHouse implements HouseWorkload {
+    private static final long SEED = 42;
+    private static final int ROOMS_PER_FLOOR = 100_000;
+
+    private List<Room> rooms;
+    private RoomRegistry registry;
+    private final ObservableList<String> exitItems = FXCollections.observableArrayList();
+    private final ExitListModel exitList = new ExitListModel();
+
+    @Override
+    public void build(int roomCount) throws Exception {
+        if (roomCount <= 15) {
+            rooms = RoomDataReader.readAll(Path.of(GameEngine.ROOMS_FILE), Path.of(GameEngine.DESCRIPTIONS_FILE));
+        } else {
+            rooms = new HouseGenerator(SEED, roomCount, Math.max(1, roomCount / ROOMS_PER_FLOOR)).generateAll();
+        }
+        registry = new RoomRegistry(rooms);
+    }
+
+    @Override
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    @Override
+    public String roomName(int index) {
+        return rooms.get(index).getName();
+    }
+
+    @Override
+    public Object findByName(String name) {
+        return registry.findByName(name);
+    }
+
+    @Override
+    public Object findByNameLinear(String name) {
+        for (Room room : rooms) {
+            if (room.getName().equalsIgnoreCase(name)) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object buildRegistry() {
+        return new RoomRegistry(rooms);
+    }
+
+    @Override
+    public int materializeExits(int index) {
+        exitItems.clear();
+        exitItems.addAll(rooms.get(index).getExits());
+        return exitItems.size();
+    }
+
+    @Override
+    public int updateExits(int index) {
+        exitList.setExits(rooms.get(index).getExits());
+        return exitList.getItems().size();
+    }
+}
@@ -0,0 +1,33 @@
+package hauntedhouse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks filling the exit list with the exits of a room, which happens on every move: clearing and refilling
+ * the list, against the game's diffing exit list model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExitListBenchmark {
+
+    @Benchmark
+    public int materializeExits(HouseState state) {
+        return state.house.materializeExits(state.roomIndexes[state.nextSample()]);
+    }
+
+    @Benchmark
+    public int updateExits(HouseState state) {
+        return state.house.updateExits(state.roomIndexes[state.nextSample()]);
+    }
+}
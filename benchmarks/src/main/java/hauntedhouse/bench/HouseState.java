@@ -0,0 +1,54 @@
+package hauntedhouse.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * The HouseState class holds a house of the size being benchmarked, plus a fixed, random sequence of rooms to visit
+ * so every benchmark sees the same access pattern.
+ */
+@State(Scope.Benchmark)
+public class HouseState {
+    private static final int SAMPLES = 1 << 12;
+
+    /** 15 is the real house, the others are generated. */
+    @Param({"15", "10000", "1000000"})
+    public int rooms;
+
+    HouseWorkload house;
+    int[] roomIndexes;
+    String[] lookupNames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        house = HouseWorkload.create();
+        house.build(rooms);
+
+        SplittableRandom random = new SplittableRandom(1112);
+        roomIndexes = new int[SAMPLES];
+        lookupNames = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            roomIndexes[i] = random.nextInt(house.roomCount());
+            // Exit names come from the combo box in whatever case they were written, so mix the case up
+            String name = house.roomName(roomIndexes[i]);
+            lookupNames[i] = random.nextBoolean() ? name : name.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Gets the position of the next sample, wrapping around at the end.
+     *
+     * @return The index into {@link #roomIndexes} and {@link #lookupNames}.
+     */
+    int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+}
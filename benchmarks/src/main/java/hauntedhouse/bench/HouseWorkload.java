@@ -0,0 +1,86 @@
+package hauntedhouse.bench;
+
+/**
+ * The HouseWorkload interface is the bridge between the benchmarks and the game.  The game classes live in the
+ * default package, which JMH benchmarks can't import, so the benchmarks drive them through this interface and the
+ * default package {@code BenchmarkHouse} class implements it.
+ */
+public interface HouseWorkload {
+
+    /**
+     * Builds a house.  A house of 15 rooms or fewer is the real house from the game's data files, larger houses are
+     * generated.
+     *
+     * @param roomCount The number of rooms in the house.
+     * @throws Exception If the house can't be built.
+     */
+    void build(int roomCount) throws Exception;
+
+    /**
+     * Gets the number of rooms in the house.
+     *
+     * @return The number of rooms.
+     */
+    int roomCount();
+
+    /**
+     * Gets the name of a room.
+     *
+     * @param index The index of the room.
+     * @return The name of the room.
+     */
+    String roomName(int index);
+
+    /**
+     * Finds a room through the room registry.
+     *
+     * @param name The name of the room.
+     * @return The room, or null if there is no such room.
+     */
+    Object findByName(String name);
+
+    /**
+     * Finds a room by scanning the room list, the way the game did before it had a room registry.
+     *
+     * @param name The name of the room.
+     * @return The room, or null if there is no such room.
+     */
+    Object findByNameLinear(String name);
+
+    /**
+     * Builds the room registry, resolving every exit of every room.
+     *
+     * @return The new registry.
+     */
+    Object buildRegistry();
+
+    /**
+     * Replaces the contents of an exit list with the exits of a room, the way the exit combo box is filled.
+     *
+     * @param index The index of the room.
+     * @return The number of exits in the list.
+     */
+    int materializeExits(int index);
+
+    /**
+     * Shows the exits of a room through the game's diffing exit list model, which only changes the entries that
+     * differ from the last room shown.
+     *
+     * @param index The index of the room.
+     * @return The number of exits in the list.
+     */
+    int updateExits(int index);
+
+    /**
+     * Creates the workload implemented by the game side {@code BenchmarkHouse} class.
+     *
+     * @return A new, empty workload.
+     */
+    static HouseWorkload create() {
+        try {
+            return (HouseWorkload) Class.forName("BenchmarkHouse").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkHouse is missing from the class path", e);
+        }
+    }
+}
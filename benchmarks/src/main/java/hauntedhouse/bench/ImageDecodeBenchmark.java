@@ -0,0 +1,67 @@
+package hauntedhouse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks decoding a room image and scaling it for the game window.  JavaFX images need a running toolkit,
+ * which the benchmark machines don't have, so the PNG is decoded and scaled with ImageIO and Java2D instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageDecodeBenchmark {
+
+    @Param({"FrontHall", "Ghost"})
+    public String image;
+
+    /** How much the image is scaled down by, 1 means it is only decoded. */
+    @Param({"1", "2"})
+    public int scaleDivisor;
+
+    private byte[] png;
+
+    @Setup
+    public void setUp() throws IOException {
+        png = Files.readAllBytes(Path.of("src/resources/image", image + ".png"));
+    }
+
+    @Benchmark
+    public BufferedImage decodeAndScale() throws IOException {
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+        if (scaleDivisor == 1) {
+            return decoded;
+        }
+
+        int width = decoded.getWidth() / scaleDivisor;
+        int height = decoded.getHeight() / scaleDivisor;
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(decoded, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
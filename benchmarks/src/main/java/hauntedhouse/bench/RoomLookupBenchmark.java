@@ -0,0 +1,32 @@
+package hauntedhouse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks finding a room by name, through the room registry and with the old linear scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RoomLookupBenchmark {
+
+    @Benchmark
+    public Object registryLookup(HouseState state) {
+        return state.house.findByName(state.lookupNames[state.nextSample()]);
+    }
+
+    @Benchmark
+    public Object linearLookup(HouseState state) {
+        return state.house.findByNameLinear(state.lookupNames[state.nextSample()]);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+This is the ActionResult enum for the Haunted House game.  It lists what can come of the player taking, opening or
+using something, so every front end can tell the player the same thing.
+*/
+
+/**
+ * The ActionResult enum is what the {@link GameEngine} returns for the take, open and use commands.
+ */
+public enum ActionResult {
+    TAKEN("You take the %s."),
+    OPENED("You open the %s."),
+    UNLOCKED("You use the %s, and something gives way with a groan."),
+    LOCKED("The %s is locked."),
+    ALREADY_OPEN("The %s is already open."),
+    NOT_HERE("There is no %s here."),
+    NOT_CARRIED("You aren't carrying the %s."),
+    NOTHING_HAPPENS("You try the %s, but nothing happens."),
+    NO_SESSION("There is nobody to do anything with the %s.");
+
+    private final String message;
+
+    ActionResult(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Checks whether the action changed anything.
+     *
+     * @return True if the player's game changed.
+     */
+    public boolean isSuccess() {
+        return this == TAKEN || this == OPENED || this == UNLOCKED;
+    }
+
+    /**
+     * Describes the result to the player.
+     *
+     * @param name The name of the item or fixture the player acted on.
+     * @return A sentence for the player.
+     */
+    public String describe(String name) {
+        return String.format(message, name);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+This is the ApparitionPool class for the Haunted House game.  It shows apparitions like the ghost over the game
+window, reusing the same image views and animations every time instead of building new ones for every visit.
+*/
+
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The ApparitionPool class owns a small, fixed number of overlay slots.  Each slot is an ImageView that is added to
+ * the game window once and registered with the {@link EffectScheduler}, which fades it in, holds it and fades it out
+ * again, and hides it when it is done.  Each kind of apparition's image is decoded only once, through the image cache
+ * and texture atlas, and only set on a slot when the slot changes to a different kind of apparition.
+ * <p>
+ * If an apparition is shown again while the same apparition is still on screen, the two are merged: the running
+ * one is kept at full strength instead of a second overlay being stacked on top of it.
+ */
+public class ApparitionPool {
+    private final ImageCache imageCache;
+    private final TextureAtlas atlas;
+    private final EffectScheduler scheduler;
+    private final Map<ApparitionType, EffectScheduler.Shape> shapes = new EnumMap<>(ApparitionType.class);
+    private final Slot[] slots;
+    private int nextSlot;
+
+    /**
+     * Constructs a new ApparitionPool and adds its overlay nodes to the game window.
+     *
+     * @param layer      The pane the apparitions appear in.
+     * @param imageCache The cache used to decode the apparition images.
+     * @param atlas      The texture atlas the apparition images may be packed in.
+     * @param scheduler  The scheduler that fades the apparitions in and out.
+     * @param size       The most apparitions that can be on screen at once.
+     */
+    public ApparitionPool(Pane layer, ImageCache imageCache, TextureAtlas atlas, EffectScheduler scheduler, int size) {
+        this.imageCache = imageCache;
+        this.atlas = atlas;
+        this.scheduler = scheduler;
+        for (ApparitionType type : ApparitionType.values()) {
+            shapes.put(type, new EffectScheduler.Shape(EffectScheduler.Priority.NORMAL, 0.0, type.getPeakOpacity(),
+                    type.getFadeIn(), type.getHold(), type.getFadeOut(), 1, false));
+        }
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].view.setMouseTransparent(true); // Apparitions never block the room underneath
+            layer.getChildren().add(slots[i].view);
+            slots[i].target = scheduler.addTarget(slots[i].view, 0.0, true);
+        }
+    }
+
+    /**
+     * Shows an apparition at its usual position.
+     *
+     * @param type The kind of apparition to show.
+     */
+    public void show(ApparitionType type) {
+        show(type, type.getX(), type.getY());
+    }
+
+    /**
+     * Shows an apparition at the given position.
+     *
+     * @param type The kind of apparition to show.
+     * @param x    Where the apparition appears, from the left of the game window.
+     * @param y    Where the apparition appears, from the top of the game window.
+     */
+    public void show(ApparitionType type, double x, double y) {
+        // Merge with the same apparition if it's still on screen; the scheduler renews it
+        for (Slot slot : slots) {
+            if (slot.type == type && scheduler.isPlaying(slot.target)
+                    && slot.view.getLayoutX() == x && slot.view.getLayoutY() == y) {
+                scheduler.play(slot.target, shapes.get(type));
+                return;
+            }
+        }
+
+        Slot slot = freeSlot();
+        scheduler.cancel(slot.target); // The oldest apparition makes way if every slot is showing one
+        if (slot.type != type) {
+            atlas.apply(slot.view, type.getImagePath(), imageCache);
+            slot.type = type;
+        }
+        slot.view.setLayoutX(x);
+        slot.view.setLayoutY(y);
+        scheduler.play(slot.target, shapes.get(type));
+    }
+
+    /**
+     * Finds a slot that isn't showing anything, or takes the slot that was started longest ago.
+     *
+     * @return The slot to use.
+     */
+    private Slot freeSlot() {
+        for (Slot slot : slots) {
+            if (!scheduler.isPlaying(slot.target)) {
+                return slot;
+            }
+        }
+        Slot oldest = slots[nextSlot];
+        nextSlot = (nextSlot + 1) % slots.length;
+        return oldest;
+    }
+
+    /**
+     * One reusable overlay: an image view, and its target number in the scheduler.
+     */
+    private static final class Slot {
+        private final ImageView view = new ImageView();
+        private int target;
+        private ApparitionType type;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+This is the ApparitionType enum for the Haunted House game.  Every kind of apparition that can appear over a room is
+listed here with its image, where it appears, and how it fades in and out.
+*/
+
+import javafx.util.Duration;
+
+/**
+ * The ApparitionType enum describes the apparitions the {@link ApparitionPool} can show.
+ */
+public enum ApparitionType {
+    /** The ghost seen in the Washroom and the Upstairs Loft. */
+    GHOST("file:src/resources/image/Ghost.png", 500, 300, 0.6, 2, 2, 2);
+
+    private final String imagePath;
+    private final double x;
+    private final double y;
+    private final double peakOpacity;
+    private final Duration fadeIn;
+    private final Duration hold;
+    private final Duration fadeOut;
+
+    /**
+     * Constructs an ApparitionType.
+     *
+     * @param imagePath      The URL of the apparition's image.
+     * @param x              Where the apparition appears, from the left of the game window.
+     * @param y              Where the apparition appears, from the top of the game window.
+     * @param peakOpacity    How opaque the apparition gets.
+     * @param fadeInSeconds  How long the apparition takes to appear.
+     * @param holdSeconds    How long the apparition stays before it fades.
+     * @param fadeOutSeconds How long the apparition takes to disappear.
+     */
+    ApparitionType(String imagePath, double x, double y, double peakOpacity,
+                   double fadeInSeconds, double holdSeconds, double fadeOutSeconds) {
+        this.imagePath = imagePath;
+        this.x = x;
+        this.y = y;
+        this.peakOpacity = peakOpacity;
+        this.fadeIn = Duration.seconds(fadeInSeconds);
+        this.hold = Duration.seconds(holdSeconds);
+        this.fadeOut = Duration.seconds(fadeOutSeconds);
+    }
+
+    /**
+     * Gets the URL of the apparition's image.
+     *
+     * @return The URL of the image.
+     */
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    /**
+     * Gets where the apparition appears, from the left of the game window.
+     *
+     * @return The x position of the apparition.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Gets where the apparition appears, from the top of the game window.
+     *
+     * @return The y position of the apparition.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Gets how opaque the apparition gets.
+     *
+     * @return The opacity at the peak of the apparition.
+     */
+    public double getPeakOpacity() {
+        return peakOpacity;
+    }
+
+    /**
+     * Gets how long the apparition takes to appear.
+     *
+     * @return The fade in duration.
+     */
+    public Duration getFadeIn() {
+        return fadeIn;
+    }
+
+    /**
+     * Gets how long the apparition stays before it fades.
+     *
+     * @return The hold duration.
+     */
+    public Duration getHold() {
+        return hold;
+    }
+
+    /**
+     * Gets how long the apparition takes to disappear.
+     *
+     * @return The fade out duration.
+     */
+    public Duration getFadeOut() {
+        return fadeOut;
+    }
+}
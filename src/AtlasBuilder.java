@@ -0,0 +1,236 @@
+/*
+This is the AtlasBuilder class for the Haunted House game.  It is a build-time tool that packs the room and sprite
+images into a few large atlas pages, scaled for the game window, and writes an index of where every image ended up.
+*/
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The AtlasBuilder class packs images into atlas pages with a simple shelf packer: images are sorted from tallest to
+ * shortest and laid out left to right in rows, starting a new row when one is full and a new page when a page is
+ * full.  Every image is scaled by the same factor, so that the widest image (a room) matches the target width.
+ * <p>
+ * For every target width it writes {@code <atlasDir>/<width>/page-N.png} and an {@code index.jsonl} file with one
+ * line per image, which {@link TextureAtlas} reads at runtime.
+ */
+public class AtlasBuilder {
+    private static final int PADDING = 1; // Keeps smoothing from bleeding neighbouring images into each other
+
+    private final int maxPageSize;
+
+    /**
+     * Constructs a new AtlasBuilder.
+     *
+     * @param maxPageSize The largest width and height of an atlas page, in pixels.
+     */
+    public AtlasBuilder(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Builds the atlas pages and index for one target width.
+     *
+     * @param imageDir    The folder holding the source PNG images.
+     * @param outputDir   The folder to write the pages and index to.
+     * @param targetWidth The width the widest image is scaled to.
+     * @throws IOException If an image can't be read or the output can't be written.
+     */
+    public void build(Path imageDir, Path outputDir, int targetWidth) throws IOException {
+        List<Sprite> sprites = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(imageDir, "*.png")) {
+            for (Path file : files) {
+                BufferedImage image = ImageIO.read(file.toFile());
+                if (image == null) {
+                    throw new IOException("Not a readable image: " + file);
+                }
+                sprites.add(new Sprite(imageUrl(imageDir, file), image));
+            }
+        }
+        if (sprites.isEmpty()) {
+            throw new IOException("No PNG images in " + imageDir);
+        }
+
+        int widest = 0;
+        for (Sprite sprite : sprites) {
+            widest = Math.max(widest, sprite.image.getWidth());
+        }
+        double scale = (double) targetWidth / widest;
+        for (Sprite sprite : sprites) {
+            sprite.image = scale(sprite.image, scale);
+            if (sprite.image.getWidth() > maxPageSize || sprite.image.getHeight() > maxPageSize) {
+                throw new IOException(sprite.source + " doesn't fit on a " + maxPageSize + " pixel atlas page");
+            }
+        }
+
+        // Tallest first, with the name as a tie breaker so the output is the same on every machine
+        sprites.sort(Comparator.comparingInt((Sprite sprite) -> -sprite.image.getHeight())
+                .thenComparing(sprite -> sprite.source));
+        int pageCount = pack(sprites);
+
+        Files.createDirectories(outputDir);
+        for (int page = 0; page < pageCount; page++) {
+            writePage(sprites, page, outputDir.resolve("page-" + page + ".png"));
+        }
+        writeIndex(sprites, outputDir);
+        System.out.println("Packed " + sprites.size() + " images into " + pageCount + " page(s) in " + outputDir);
+    }
+
+    /**
+     * Gives every sprite a page and a position on it.
+     *
+     * @param sprites The sprites, tallest first.
+     * @return The number of pages used.
+     */
+    private int pack(List<Sprite> sprites) {
+        int page = 0;
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        for (Sprite sprite : sprites) {
+            int width = sprite.image.getWidth() + PADDING;
+            int height = sprite.image.getHeight() + PADDING;
+            if (x + width > maxPageSize) { // Start a new row
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            if (y + height > maxPageSize) { // Start a new page
+                page++;
+                x = 0;
+                y = 0;
+                rowHeight = 0;
+            }
+            sprite.page = page;
+            sprite.x = x;
+            sprite.y = y;
+            x += width;
+            rowHeight = Math.max(rowHeight, height);
+        }
+        return page + 1;
+    }
+
+    /**
+     * Draws every sprite of one page into a single image, cropped to the area that's used, and saves it.
+     */
+    private static void writePage(List<Sprite> sprites, int page, Path file) throws IOException {
+        int width = 0;
+        int height = 0;
+        for (Sprite sprite : sprites) {
+            if (sprite.page != page) continue;
+            width = Math.max(width, sprite.x + sprite.image.getWidth());
+            height = Math.max(height, sprite.y + sprite.image.getHeight());
+        }
+
+        BufferedImage atlas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = atlas.createGraphics();
+        for (Sprite sprite : sprites) {
+            if (sprite.page == page) {
+                graphics.drawImage(sprite.image, sprite.x, sprite.y, null);
+            }
+        }
+        graphics.dispose();
+        ImageIO.write(atlas, "png", file.toFile());
+    }
+
+    /**
+     * Writes the index file, with one JSON line per sprite giving its page and viewport.
+     */
+    private static void writeIndex(List<Sprite> sprites, Path outputDir) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(outputDir.resolve(TextureAtlas.INDEX_FILE),
+                StandardCharsets.UTF_8)) {
+            for (Sprite sprite : sprites) {
+                StringBuilder line = new StringBuilder(160);
+                line.append("{\"image\":");
+                JsonLine.appendString(line, sprite.source);
+                line.append(",\"page\":");
+                JsonLine.appendString(line, imageUrl(outputDir, outputDir.resolve("page-" + sprite.page + ".png")));
+                line.append(",\"x\":").append(sprite.x);
+                line.append(",\"y\":").append(sprite.y);
+                line.append(",\"width\":").append(sprite.image.getWidth());
+                line.append(",\"height\":").append(sprite.image.getHeight());
+                line.append('}');
+                writer.write(line.toString());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Scales an image with bilinear filtering.
+     *
+     * @param image The image to scale.
+     * @param scale The scale factor, 1 leaves the image as it is.
+     * @return The scaled image.
+     */
+    private static BufferedImage scale(BufferedImage image, double scale) {
+        if (scale == 1.0) return image;
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    /**
+     * Gets the URL the game uses for a file, e.g. "file:src/resources/image/Attic.png", matching
+     * {@link Room#getImagePath()}.
+     */
+    private static String imageUrl(Path dir, Path file) {
+        return "file:" + dir.resolve(file.getFileName()).toString().replace('\\', '/');
+    }
+
+    /**
+     * One image being packed.
+     */
+    private static final class Sprite {
+        private final String source;
+        private BufferedImage image;
+        private int page;
+        private int x;
+        private int y;
+
+        Sprite(String source, BufferedImage image) {
+            this.source = source;
+            this.image = image;
+        }
+    }
+
+    /**
+     * The main method to build the atlases.  Run it from the base folder of the project.
+     *
+     * @param args Command-line arguments: the image folder, the atlas folder, and then one or more target widths.
+     *             They default to src/resources/image, src/resources/atlas and the width of the game window.
+     * @throws IOException If the atlases can't be built.
+     */
+    public static void main(String[] args) throws IOException {
+        Path imageDir = Path.of(args.length > 0 ? args[0] : "src/resources/image");
+        Path atlasDir = Path.of(args.length > 1 ? args[1] : TextureAtlas.ATLAS_DIR);
+        List<Integer> widths = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            widths.add(Integer.parseInt(args[i]));
+        }
+        if (widths.isEmpty()) {
+            widths.add(TextureAtlas.GAME_WINDOW_WIDTH);
+        }
+
+        AtlasBuilder builder = new AtlasBuilder(Integer.getInteger("haunted.atlasPageSize", 4096));
+        for (int width : widths) {
+            builder.build(imageDir, atlasDir.resolve(String.valueOf(width)), width);
+        }
+    }
+}
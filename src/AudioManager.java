@@ -0,0 +1,272 @@
+/*
+This is the AudioManager class for the Haunted House game.  It plays the background music and the ambient track of
+each room, loading the audio in the background so it never holds up the first frame of the game.
+*/
+
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.scene.media.AudioClip;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The AudioManager class keeps one MediaPlayer per ambient track.  Players are created on a background thread the
+ * first time a room needs their track, and changing to a room with a different track crossfades between the two.
+ * Players whose tracks aren't used by any room near the player are disposed of, so the decoded audio doesn't pile
+ * up in bigger houses.
+ * <p>
+ * Apart from loading, every method must be called on the JavaFX Application Thread.
+ */
+public class AudioManager {
+    private static final Duration CROSSFADE = Duration.seconds(2);
+    private static final int KEEP_DISTANCE = 2; // Players for tracks used this many moves away stay loaded
+
+    private final String defaultTrack;
+    private final RoomRegistry registry;
+    private final RoomGraph graph;
+    private final long launchNanos;
+
+    private final Map<String, MediaPlayer> players = new HashMap<>();
+    private final Set<String> loading = new HashSet<>();
+    private final Map<String, AudioClip> sounds = new HashMap<>();
+    private final Set<String> loadingSounds = new HashSet<>();
+    private final ExecutorService loader;
+
+    private String currentTrack;
+    private MediaPlayer currentPlayer;
+    private Timeline crossfade;
+    private MediaPlayer fadingOut; // The player the running crossfade is fading out, or null
+    private long firstAudioMillis = -1;
+
+    /**
+     * Constructs a new AudioManager.  Nothing is loaded until the first room is entered.
+     *
+     * @param defaultTrack The URL of the music for rooms without their own ambient track, or null for silence.
+     * @param engine       The game engine, used to find the rooms near the player.
+     * @param launchNanos  The {@link System#nanoTime()} when the game was launched, to report time to first audio.
+     */
+    public AudioManager(String defaultTrack, GameEngine engine, long launchNanos) {
+        this.defaultTrack = defaultTrack;
+        this.registry = engine.getRegistry();
+        this.graph = engine.getGraph();
+        this.launchNanos = launchNanos;
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audio-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Switches to the ambient track of a room, crossfading from the track that's playing if they are different.
+     *
+     * @param room The room the player entered.
+     */
+    public void enterRoom(Room room) {
+        String track = room.getAmbientPath() != null ? room.getAmbientPath() : defaultTrack;
+        if (track != null && !track.equals(currentTrack)) {
+            currentTrack = track;
+            MediaPlayer player = players.get(track);
+            if (player != null) {
+                crossfadeTo(player);
+            } else if (loading.add(track)) {
+                loader.execute(() -> load(track));
+            }
+        }
+        releaseFarPlayers(room);
+    }
+
+    /**
+     * Plays a sound effect once, over the ambient track.  The first time a sound is played it is loaded in the
+     * background and plays as soon as it's ready.
+     *
+     * @param url The URL of the sound.
+     */
+    public void playSound(String url) {
+        AudioClip clip = sounds.get(url);
+        if (clip != null) {
+            clip.play();
+        } else if (loadingSounds.add(url)) {
+            loader.execute(() -> loadSound(url));
+        }
+    }
+
+    /**
+     * Loads a sound effect on the loader thread, then plays it on the JavaFX Application Thread.
+     *
+     * @param url The URL of the sound.
+     */
+    private void loadSound(String url) {
+        AudioClip clip;
+        try {
+            clip = new AudioClip(url);
+        } catch (RuntimeException e) {
+            System.err.println("Couldn't load sound " + url + ": " + e.getMessage());
+            clip = null;
+        }
+        AudioClip loaded = clip;
+        Platform.runLater(() -> {
+            loadingSounds.remove(url);
+            if (loaded != null) {
+                sounds.put(url, loaded);
+                loaded.play();
+            }
+        });
+    }
+
+    /**
+     * Creates the player for a track.  This runs on the loader thread, and hands the player over to the JavaFX
+     * Application Thread when it's ready.
+     *
+     * @param track The URL of the track.
+     */
+    private void load(String track) {
+        MediaPlayer player;
+        try {
+            player = new MediaPlayer(new Media(track));
+        } catch (RuntimeException e) {
+            System.err.println("Couldn't load audio " + track + ": " + e.getMessage());
+            Platform.runLater(() -> loading.remove(track));
+            return;
+        }
+
+        player.setCycleCount(MediaPlayer.INDEFINITE); // Loop the audio continuously
+        player.setOnError(() -> System.err.println("Couldn't play audio " + track + ": " + player.getError()));
+        player.setOnPlaying(this::reportFirstAudio);
+        Platform.runLater(() -> {
+            loading.remove(track);
+            players.put(track, player);
+            if (track.equals(currentTrack)) {
+                crossfadeTo(player);
+            }
+        });
+    }
+
+    /**
+     * Fades the current player out and the given player in.  A crossfade that is still running is cut short: the
+     * player it was fading out is silenced at once, unless it is the one coming back, which fades up again from
+     * where it got to.
+     *
+     * @param next The player to fade in.
+     */
+    private void crossfadeTo(MediaPlayer next) {
+        boolean fadingBack = next == fadingOut;
+        if (crossfade != null) {
+            crossfade.stop(); // Its onFinished won't run now, so finish its fade out here
+            crossfade = null;
+            if (fadingOut != null && !fadingBack) {
+                fadingOut.setVolume(0.0);
+                fadingOut.pause();
+            }
+            fadingOut = null;
+        }
+        MediaPlayer previous = currentPlayer;
+        currentPlayer = next;
+        if (previous == next) {
+            next.setVolume(1.0);
+            return;
+        }
+
+        if (previous == null) {
+            next.setVolume(1.0); // The very first track starts at full volume
+        } else if (!fadingBack) {
+            next.setVolume(0.0);
+        }
+        next.play();
+        if (previous == null) return;
+
+        fadingOut = previous;
+        crossfade = new Timeline(new KeyFrame(CROSSFADE,
+                new KeyValue(next.volumeProperty(), 1.0),
+                new KeyValue(previous.volumeProperty(), 0.0)));
+        crossfade.setOnFinished(e -> {
+            previous.pause();
+            fadingOut = null;
+            crossfade = null;
+        });
+        crossfade.play();
+    }
+
+    /**
+     * Disposes of every player whose track isn't used by a room within {@link #KEEP_DISTANCE} moves of the player.
+     *
+     * @param room The room the player is in.
+     */
+    private void releaseFarPlayers(Room room) {
+        if (players.size() <= 1) return;
+
+        Set<String> nearTracks = new HashSet<>();
+        Set<Integer> seen = new HashSet<>();
+        ArrayDeque<int[]> queue = new ArrayDeque<>(); // {room ID, distance}
+        queue.add(new int[]{room.getId(), 0});
+        seen.add(room.getId());
+        while (!queue.isEmpty()) {
+            int[] next = queue.poll();
+            Room nearRoom = registry.findById(next[0]);
+            nearTracks.add(nearRoom.getAmbientPath() != null ? nearRoom.getAmbientPath() : defaultTrack);
+            if (next[1] == KEEP_DISTANCE) continue;
+            for (int i = 0; i < graph.getExitCount(next[0]); i++) {
+                int target = graph.getExitTarget(next[0], i);
+                if (seen.add(target)) {
+                    queue.add(new int[]{target, next[1] + 1});
+                }
+            }
+        }
+
+        Iterator<Map.Entry<String, MediaPlayer>> iterator = players.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, MediaPlayer> entry = iterator.next();
+            MediaPlayer player = entry.getValue();
+            if (player != currentPlayer && player != fadingOut && !nearTracks.contains(entry.getKey())) {
+                player.dispose();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Prints how long it took from launch until audio started playing, the first time any track plays.
+     */
+    private void reportFirstAudio() {
+        if (firstAudioMillis >= 0) return;
+        firstAudioMillis = (System.nanoTime() - launchNanos) / 1_000_000;
+        System.out.println("Time to first audio: " + firstAudioMillis + " ms");
+    }
+
+    /**
+     * Gets how long it took from launch until audio started playing.
+     *
+     * @return The time to first audio in milliseconds, or -1 if nothing has played yet.
+     */
+    public long getFirstAudioMillis() {
+        return firstAudioMillis;
+    }
+
+    /**
+     * Stops the music and disposes of every player.
+     */
+    public void shutdown() {
+        loader.shutdownNow();
+        for (MediaPlayer player : players.values()) {
+            player.dispose();
+        }
+        players.clear();
+        for (AudioClip clip : sounds.values()) {
+            clip.stop();
+        }
+        sounds.clear();
+        currentPlayer = null;
+    }
+}
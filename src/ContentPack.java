@@ -0,0 +1,157 @@
+/*
+This is the ContentPack class for the Haunted House game.  It holds the room names and descriptions of one language,
+read from a compressed content pack, and decodes a room's text only when it is shown.
+*/
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The ContentPack class keeps every string of a language in one byte array of UTF-8 text, the arena, and a table of
+ * where each room's name and description are in it, indexed by room ID.  A string that appears more than once in the
+ * language is only in the arena once, and nothing is turned into a {@link String} until it is asked for, so a loaded
+ * pack costs about as much memory as its text.
+ * <p>
+ * Packs are written by {@link ContentPackBuilder}.  A pack file is GZIP compressed, and holds:
+ * <pre>
+ *   int    magic "HHCP"
+ *   int    version
+ *   UTF    locale tag
+ *   int    room count
+ *   long   fingerprint of the room names, in ID order
+ *   int    arena length, then the arena
+ *   int[4] per room: name offset, name length, description offset, description length
+ * </pre>
+ * A length of -1 means the room isn't translated.  The fingerprint ties the pack to the house it was built for, since
+ * the rooms are found by ID.
+ */
+public class ContentPack {
+    static final int MAGIC = 0x48484350; // "HHCP"
+    static final int VERSION = 1;
+    static final int UNTRANSLATED = -1;
+    private static final int SPAN = 4; // Ints per room in the table
+
+    private final String locale;
+    private final byte[] arena;
+    private final int[] spans;
+
+    private ContentPack(String locale, byte[] arena, int[] spans) {
+        this.locale = locale;
+        this.arena = arena;
+        this.spans = spans;
+    }
+
+    /**
+     * Reads a content pack.
+     *
+     * @param file     The pack file.
+     * @param registry The rooms of the house, which the pack must have been built for.
+     * @return The content pack.
+     * @throws IOException If the file can't be read, isn't a content pack, or was built for another house.
+     */
+    public static ContentPack read(Path file, RoomRegistry registry) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " isn't a content pack");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + " is version " + version + ", expected " + VERSION);
+            }
+            String locale = in.readUTF();
+            int roomCount = in.readInt();
+            long fingerprint = in.readLong();
+            if (roomCount != registry.size() || fingerprint != fingerprintOf(registry)) {
+                throw new IOException(file + " was built for a different house");
+            }
+
+            int arenaLength = in.readInt();
+            if (arenaLength < 0) {
+                throw new IOException(file + " is corrupt");
+            }
+            byte[] arena = new byte[arenaLength];
+            in.readFully(arena);
+            int[] spans = new int[roomCount * SPAN];
+            for (int i = 0; i < spans.length; i += 2) {
+                int offset = in.readInt();
+                int length = in.readInt();
+                if (length != UNTRANSLATED && (offset < 0 || length < 0 || offset > arenaLength - length)) {
+                    throw new IOException(file + " is corrupt");
+                }
+                spans[i] = offset;
+                spans[i + 1] = length;
+            }
+            return new ContentPack(locale, arena, spans);
+        }
+    }
+
+    /**
+     * Works out the fingerprint of a house: a checksum of its room names in ID order.
+     *
+     * @param registry The rooms of the house.
+     * @return The fingerprint.
+     */
+    static long fingerprintOf(RoomRegistry registry) {
+        CRC32 crc = new CRC32();
+        for (int id = 0; id < registry.size(); id++) {
+            crc.update(registry.findById(id).getName().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Gets the language of the pack.
+     *
+     * @return The locale tag, e.g. "fr".
+     */
+    public String getLocale() {
+        return locale;
+    }
+
+    /**
+     * Gets a room's name in the pack's language.
+     *
+     * @param roomId The ID of the room.
+     * @return The name, or null if the room isn't translated.
+     */
+    public String getName(int roomId) {
+        return decode(roomId * SPAN);
+    }
+
+    /**
+     * Gets a room's description in the pack's language, decoded from the arena.
+     *
+     * @param roomId The ID of the room.
+     * @return The description, or null if the room isn't translated.
+     */
+    public String getDescription(int roomId) {
+        return decode(roomId * SPAN + 2);
+    }
+
+    /**
+     * Gets how many bytes of text the pack holds, after repeated strings were merged.
+     *
+     * @return The size of the arena.
+     */
+    public int getArenaSize() {
+        return arena.length;
+    }
+
+    private String decode(int span) {
+        if (span < 0 || span >= spans.length || spans[span + 1] == UNTRANSLATED) return null;
+        return new String(arena, spans[span], spans[span + 1], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "Content pack " + locale + ": " + spans.length / SPAN + " rooms, " + arena.length + " bytes of text";
+    }
+}
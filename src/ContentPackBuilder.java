@@ -0,0 +1,139 @@
+/*
+This is the ContentPackBuilder class for the Haunted House game.  It is a build-time tool that turns the translations
+of the room names and descriptions into compressed content packs, one per language, that the game can switch between.
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The ContentPackBuilder class reads translation files, {@code <sourceDir>/<locale>.jsonl}, with one line per room:
+ * <pre>
+ *   {"room":"Front Yard","name":"Cour d'entrée","description":"\tFirst paragraph\n\tSecond paragraph"}
+ * </pre>
+ * Rooms are named by their English name, which is what translators see, and the builder looks their IDs up in the
+ * house, so the game finds a room's text by ID.  Every distinct string is written to the pack's arena once, however
+ * many rooms use it, and a room that isn't in the file is left untranslated and shown in English.  The packs are
+ * written to {@code <packDir>/<locale>.pack} in the format described by {@link ContentPack}.
+ */
+public class ContentPackBuilder {
+    private final RoomRegistry registry;
+
+    /**
+     * Constructs a new ContentPackBuilder.
+     *
+     * @param registry The rooms of the house the packs are for.
+     */
+    public ContentPackBuilder(RoomRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Builds the content pack of one language.
+     *
+     * @param source The translation file.
+     * @param pack   The pack file to write.
+     * @throws IOException If the translations can't be read, name a room the house doesn't have, or the pack can't
+     *                     be written.
+     */
+    public void build(Path source, Path pack) throws IOException {
+        String fileName = source.getFileName().toString();
+        String locale = fileName.substring(0, fileName.length() - ".jsonl".length());
+
+        ByteArrayOutputStream arena = new ByteArrayOutputStream();
+        Map<String, Integer> offsets = new HashMap<>(); // Where each distinct string already is in the arena
+        int[] spans = new int[registry.size() * 4];
+        Arrays.fill(spans, ContentPack.UNTRANSLATED);
+        int strings = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                Map<String, Object> fields;
+                try {
+                    fields = JsonLine.parseObject(line);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(source + ":" + lineNumber + ": " + e.getMessage());
+                }
+                Room room = registry.findByName((String) fields.get("room"));
+                if (room == null) {
+                    throw new IOException(source + ":" + lineNumber + ": no room called " + fields.get("room"));
+                }
+                int span = room.getId() * 4;
+                strings += store(arena, offsets, spans, span, (String) fields.get("name"));
+                strings += store(arena, offsets, spans, span + 2, (String) fields.get("description"));
+            }
+        }
+
+        Files.createDirectories(pack.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(pack))))) {
+            out.writeInt(ContentPack.MAGIC);
+            out.writeInt(ContentPack.VERSION);
+            out.writeUTF(locale);
+            out.writeInt(registry.size());
+            out.writeLong(ContentPack.fingerprintOf(registry));
+            out.writeInt(arena.size());
+            arena.writeTo(out);
+            for (int value : spans) {
+                out.writeInt(value);
+            }
+        }
+        System.out.println("Packed " + strings + " strings of " + locale + " into " + arena.size() + " bytes ("
+                + Files.size(pack) + " compressed) in " + pack);
+    }
+
+    /**
+     * Puts a string in the arena, unless it's already there, and records where it is.
+     *
+     * @return 1 if the string was given, 0 if it was left out.
+     */
+    private static int store(ByteArrayOutputStream arena, Map<String, Integer> offsets, int[] spans, int span,
+                             String text) {
+        if (text == null) return 0;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Integer offset = offsets.get(text);
+        if (offset == null) {
+            offset = arena.size();
+            offsets.put(text, offset);
+            arena.write(bytes, 0, bytes.length);
+        }
+        spans[span] = offset;
+        spans[span + 1] = bytes.length;
+        return 1;
+    }
+
+    /**
+     * The main method to build the content packs.  Run it from the base folder of the project.
+     *
+     * @param args Command-line arguments: the folder of translation files and the folder to write the packs to.  They
+     *             default to src/resources/data/locales and src/resources/packs.
+     * @throws IOException If a pack can't be built.
+     */
+    public static void main(String[] args) throws IOException {
+        Path sourceDir = Path.of(args.length > 0 ? args[0] : "src/resources/data/locales");
+        Path packDir = Path.of(args.length > 1 ? args[1] : ContentPacks.PACK_DIR);
+
+        ContentPackBuilder builder = new ContentPackBuilder(GameEngine.loadDefault().getRegistry());
+        try (DirectoryStream<Path> sources = Files.newDirectoryStream(sourceDir, "*.jsonl")) {
+            for (Path source : sources) {
+                String fileName = source.getFileName().toString();
+                builder.build(source, packDir.resolve(fileName.replace(".jsonl", ".pack")));
+            }
+        }
+    }
+}
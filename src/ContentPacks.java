@@ -0,0 +1,123 @@
+/*
+This is the ContentPacks class for the Haunted House game.  It finds the content packs that have been built, and
+keeps the one language the player chose loaded, so the game can change language while it is running.
+*/
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ContentPacks class gives the name and description of a room in the active language.  English is built into the
+ * house and needs no pack; every other language is a {@link ContentPack} in the pack folder.  Only the active pack is
+ * kept: choosing another language loads its pack, which can be done on a background thread, and then swaps it in, so
+ * the old one can be collected.  A room the active pack doesn't translate is shown in English.
+ */
+public class ContentPacks {
+    public static final String PACK_DIR = "src/resources/packs";
+    public static final String BASE_LOCALE = "en"; // The language of the house's own data files
+    private static final String PACK_SUFFIX = ".pack";
+
+    private final Path packDir;
+    private final RoomRegistry registry;
+    private volatile ContentPack active; // Null for English
+
+    /**
+     * Constructs a new ContentPacks, with English active.
+     *
+     * @param packDir  The folder the packs were built in.
+     * @param registry The rooms of the house.
+     */
+    public ContentPacks(Path packDir, RoomRegistry registry) {
+        this.packDir = packDir;
+        this.registry = registry;
+    }
+
+    /**
+     * Gets the languages the game can be played in: English, and one for every pack that has been built.
+     *
+     * @return The locale tags, English first and then the rest in order.
+     */
+    public List<String> getLocales() {
+        List<String> locales = new ArrayList<>();
+        if (Files.isDirectory(packDir)) {
+            try (DirectoryStream<Path> packs = Files.newDirectoryStream(packDir, "*" + PACK_SUFFIX)) {
+                for (Path pack : packs) {
+                    String fileName = pack.getFileName().toString();
+                    locales.add(fileName.substring(0, fileName.length() - PACK_SUFFIX.length()));
+                }
+            } catch (IOException e) {
+                System.err.println("Couldn't list the content packs in " + packDir + ": " + e.getMessage());
+            }
+        }
+        locales.sort(null);
+        locales.remove(BASE_LOCALE);
+        locales.add(0, BASE_LOCALE);
+        return locales;
+    }
+
+    /**
+     * Loads the pack of a language, without making it active.  This reads and decompresses the pack, so it is best
+     * called off the JavaFX Application Thread.
+     *
+     * @param locale The locale tag.
+     * @return The pack, or null for English.
+     * @throws IOException If the pack can't be read or was built for another house.
+     */
+    public ContentPack load(String locale) throws IOException {
+        if (BASE_LOCALE.equals(locale)) return null;
+        return ContentPack.read(packDir.resolve(locale + PACK_SUFFIX), registry);
+    }
+
+    /**
+     * Makes a loaded pack the active one, dropping the last.
+     *
+     * @param pack The pack from {@link #load(String)}, or null for English.
+     */
+    public void setActive(ContentPack pack) {
+        active = pack;
+    }
+
+    /**
+     * Gets the active language.
+     *
+     * @return The locale tag.
+     */
+    public String getActiveLocale() {
+        ContentPack pack = active;
+        return pack == null ? BASE_LOCALE : pack.getLocale();
+    }
+
+    /**
+     * Gets a room's name in the active language.
+     *
+     * @param room The room.
+     * @return The translated name, or the room's own name if it isn't translated.
+     */
+    public String nameOf(Room room) {
+        ContentPack pack = active;
+        String name = pack == null ? null : pack.getName(room.getId());
+        return name != null ? name : room.getName();
+    }
+
+    /**
+     * Gets a room's description in the active language.  Like the English one, it is only decoded when asked for.
+     *
+     * @param room The room.
+     * @return The translated description, or the room's own description if it isn't translated.
+     */
+    public String describe(Room room) {
+        ContentPack pack = active;
+        String description = pack == null ? null : pack.getDescription(room.getId());
+        return description != null ? description : room.getDescription();
+    }
+
+    @Override
+    public String toString() {
+        ContentPack pack = active;
+        return pack == null ? "Language: " + BASE_LOCALE : "Language: " + pack;
+    }
+}
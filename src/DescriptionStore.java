@@ -0,0 +1,77 @@
+/*
+This is the DescriptionStore class for the Haunted House game.  Room descriptions are kept in one UTF-8 text file
+that is memory-mapped, so a description is only turned into a String when a room actually needs to show it.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The DescriptionStore class reads room descriptions from a memory-mapped file by byte offset and length.  The file
+ * is mapped in segments, so description files larger than 2 GB are supported.
+ */
+public class DescriptionStore {
+    private static final int SEGMENT_SHIFT = 30; // 1 GB per mapped segment
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    /**
+     * Constructs a new DescriptionStore by mapping the given file into memory.
+     *
+     * @param file The UTF-8 file holding all of the room descriptions.
+     * @throws IOException If the file can't be opened or mapped.
+     */
+    public DescriptionStore(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            int segmentCount = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+        }
+    }
+
+    /**
+     * Reads one description from the file.
+     *
+     * @param offset The byte offset of the description in the file.
+     * @param length The length of the description in bytes.
+     * @return The decoded description.
+     */
+    public String read(long offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IndexOutOfBoundsException("Description at " + offset + "+" + length + " is outside the file");
+        }
+
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            // Duplicate the segment so concurrent readers don't share a position
+            ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+            segment.position((int) (position & (SEGMENT_SIZE - 1)));
+            int count = Math.min(length - copied, segment.remaining());
+            segment.get(bytes, copied, count);
+            copied += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the size of the description file.
+     *
+     * @return The size of the file in bytes.
+     */
+    public long size() {
+        return size;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+This is the EffectScheduler class for the Haunted House game.  It plays every fade, flicker and apparition in the game
+window from one animation timer, so effects on the same image add up instead of fighting over its opacity.
+*/
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+
+/**
+ * The EffectScheduler class runs the opacity effects of the game window off a single {@link AnimationTimer}.  Nodes
+ * are registered once as targets, and every effect on a target is a layer: on each frame the values of all the layers
+ * of a target are multiplied together and set as the node's opacity, once.  So the Kitchen's flicker dims the room
+ * while it fades in, and neither animation overwrites the other, and the result doesn't depend on which started
+ * first.  A target with no effects goes back to its resting opacity.
+ * <p>
+ * Effects are played into a fixed pool of slots made when the scheduler is, and their {@link Shape}s are made once
+ * by whoever plays them, so playing an effect and running a frame don't allocate anything.  Playing a shape on a
+ * target that already has it running merges the two instead of stacking another layer.  When the pool is full, a new
+ * effect takes the slot of a lower priority one, or is dropped if there isn't one.
+ * <p>
+ * When a pulse arrives later than the frame budget, the game is falling behind: every {@link Priority#LOW} effect is
+ * ended at once, and new ones are dropped until the frames have been on time for a while.
+ */
+public class EffectScheduler extends AnimationTimer {
+    private static final long RECOVERY_NANOS = 500_000_000L; // How long the frames must be on time again
+    private static final int NONE = -1;
+
+    private final Slot[] slots;
+    private Node[] targets = new Node[4];
+    private double[] restOpacity = new double[4];
+    private boolean[] hideAtRest = new boolean[4];
+    private double[] composed = new double[4]; // Scratch for one frame, by target
+    private int[] layers = new int[4]; // Scratch for one frame, by target
+    private int targetCount;
+    private int active;
+
+    private final long frameBudgetNanos;
+    private long lastPulse;
+    private long overBudgetUntil;
+
+    private long played;
+    private long merged;
+    private long dropped;
+
+    /**
+     * How much an effect matters to the game, which decides what gives way when frames are late or the pool is full.
+     */
+    public enum Priority {
+        /** Effects the player must see, like a new room fading in.  These are never dropped. */
+        HIGH,
+        /** Effects that are part of the story, like an apparition. */
+        NORMAL,
+        /** Effects that only add atmosphere, like the lights flickering.  These are the first to go. */
+        LOW
+    }
+
+    /**
+     * The shape of an effect's opacity over time: it moves from one value to a peak, holds it, and moves back again,
+     * a number of times.  The layer is removed when the effect ends, so an effect whose peak is the target's resting
+     * opacity can leave out the way back.
+     */
+    public static final class Shape {
+        private final Priority priority;
+        private final double from;
+        private final double peak;
+        private final long riseNanos;
+        private final long holdNanos;
+        private final long fallNanos;
+        private final long cycleNanos;
+        private final long totalNanos;
+        private final boolean restarts;
+
+        /**
+         * Constructs a Shape.
+         *
+         * @param priority How much the effect matters.
+         * @param from     The value the effect starts and ends each cycle at.
+         * @param peak     The value the effect moves to.
+         * @param rise     How long it takes to reach the peak.
+         * @param hold     How long the peak is held.
+         * @param fall     How long it takes to get back, or zero to end at the peak.
+         * @param cycles   How many times the effect rises and falls.
+         * @param restarts True if playing the shape again while it runs starts it over, false to renew it instead.
+         */
+        public Shape(Priority priority, double from, double peak, Duration rise, Duration hold, Duration fall,
+                     int cycles, boolean restarts) {
+            this.priority = priority;
+            this.from = from;
+            this.peak = peak;
+            this.riseNanos = nanos(rise);
+            this.holdNanos = nanos(hold);
+            this.fallNanos = nanos(fall);
+            this.cycleNanos = Math.max(1, riseNanos + holdNanos + fallNanos);
+            this.totalNanos = cycleNanos * Math.max(1, cycles);
+            this.restarts = restarts;
+        }
+
+        private static long nanos(Duration duration) {
+            return (long) (duration.toMillis() * 1_000_000);
+        }
+
+        /**
+         * Gets how much the effect matters.
+         *
+         * @return The effect's priority.
+         */
+        public Priority getPriority() {
+            return priority;
+        }
+
+        /**
+         * Works out the effect's value some time after it started.
+         */
+        private double valueAt(long elapsed) {
+            long t = elapsed % cycleNanos;
+            if (t < riseNanos) {
+                return from + (peak - from) * t / riseNanos;
+            }
+            t -= riseNanos;
+            if (t < holdNanos || fallNanos == 0) {
+                return peak;
+            }
+            t -= holdNanos;
+            return peak + (from - peak) * t / fallNanos;
+        }
+    }
+
+    /**
+     * Constructs a new EffectScheduler.
+     *
+     * @param poolSize          The most effects that can run at once.
+     * @param frameBudgetMillis How long a frame may take before low priority effects are dropped.
+     */
+    public EffectScheduler(int poolSize, double frameBudgetMillis) {
+        this.slots = new Slot[Math.max(1, poolSize)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        this.frameBudgetNanos = (long) (frameBudgetMillis * 1_000_000);
+    }
+
+    /**
+     * Registers a node whose opacity the scheduler controls from now on.
+     *
+     * @param node         The node.
+     * @param rest         The node's opacity when it has no effects.
+     * @param hiddenAtRest True to hide the node when it has no effects, like an apparition that has faded out.
+     * @return The target number to play effects on.
+     */
+    public int addTarget(Node node, double rest, boolean hiddenAtRest) {
+        if (targetCount == targets.length) {
+            int size = targetCount * 2;
+            targets = Arrays.copyOf(targets, size);
+            restOpacity = Arrays.copyOf(restOpacity, size);
+            hideAtRest = Arrays.copyOf(hideAtRest, size);
+            composed = Arrays.copyOf(composed, size);
+            layers = Arrays.copyOf(layers, size);
+        }
+        int target = targetCount++;
+        targets[target] = node;
+        restOpacity[target] = rest;
+        hideAtRest[target] = hiddenAtRest;
+        node.setOpacity(rest);
+        node.setVisible(!hiddenAtRest);
+        return target;
+    }
+
+    /**
+     * Plays an effect on a target.  If the same shape is already running on the target, the two are merged: the
+     * running one starts over if the shape restarts, and otherwise jumps back to the start of its peak if it has
+     * begun to fall.
+     *
+     * @param target The target number from {@link #addTarget(Node, double, boolean)}.
+     * @param shape  The effect to play.
+     * @return True if the effect is running, false if it was dropped because the game is falling behind or every
+     *         slot is taken by a more important effect.
+     */
+    public boolean play(int target, Shape shape) {
+        long now = System.nanoTime();
+        int running = find(target, shape);
+        if (running != NONE) {
+            Slot slot = slots[running];
+            long elapsed = now - slot.start;
+            if (shape.restarts) {
+                slot.start = now;
+            } else if (elapsed % shape.cycleNanos > shape.riseNanos + shape.holdNanos) {
+                slot.start = now - (elapsed - elapsed % shape.cycleNanos) - shape.riseNanos;
+            }
+            merged++;
+            compose(target, now);
+            return true;
+        }
+
+        if (shape.priority == Priority.LOW && now < overBudgetUntil) {
+            dropped++;
+            return false;
+        }
+        int free = freeSlot(shape.priority);
+        if (free == NONE) {
+            dropped++;
+            return false;
+        }
+        Slot slot = slots[free];
+        if (slot.shape != null) {
+            dropped++; // A less important effect gives up its slot
+            int evicted = slot.target;
+            slot.shape = null;
+            active--;
+            compose(evicted, now);
+        }
+        slot.target = target;
+        slot.shape = shape;
+        slot.start = now;
+        active++;
+        played++;
+        compose(target, now);
+        if (active == 1) {
+            lastPulse = 0;
+            start();
+        }
+        return true;
+    }
+
+    /**
+     * Ends every effect on a target, which goes back to its resting opacity.
+     *
+     * @param target The target number.
+     */
+    public void cancel(int target) {
+        for (Slot slot : slots) {
+            if (slot.shape != null && slot.target == target) {
+                slot.shape = null;
+                active--;
+            }
+        }
+        compose(target, System.nanoTime());
+    }
+
+    /**
+     * Checks whether a target has any effects running.
+     *
+     * @param target The target number.
+     * @return True if an effect is running on the target.
+     */
+    public boolean isPlaying(int target) {
+        for (Slot slot : slots) {
+            if (slot.shape != null && slot.target == target) return true;
+        }
+        return false;
+    }
+
+    private int find(int target, Shape shape) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].shape == shape && slots[i].target == target) return i;
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds an empty slot, or else the slot of the least important effect that matters less than a new one, the
+     * oldest if there are several.  An effect of the same priority only gives way if it isn't {@link Priority#HIGH}.
+     */
+    private int freeSlot(Priority priority) {
+        int best = NONE;
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = slots[i];
+            if (slot.shape == null) return i;
+            int rank = slot.shape.priority.ordinal();
+            if (rank < priority.ordinal() || rank == Priority.HIGH.ordinal()) continue;
+            if (best == NONE || rank > slots[best].shape.priority.ordinal()
+                    || (rank == slots[best].shape.priority.ordinal() && slot.start < slots[best].start)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastPulse != 0 && now - lastPulse > frameBudgetNanos) {
+            overBudgetUntil = now + RECOVERY_NANOS;
+            for (Slot slot : slots) {
+                if (slot.shape != null && slot.shape.priority == Priority.LOW) {
+                    slot.shape = null;
+                    active--;
+                    dropped++;
+                }
+            }
+        }
+        lastPulse = now;
+
+        // End the effects that are done, then set every target once from all of its layers
+        for (Slot slot : slots) {
+            if (slot.shape != null && now - slot.start >= slot.shape.totalNanos) {
+                slot.shape = null;
+                active--;
+            }
+        }
+        composeAll(now);
+        if (active == 0) {
+            stop();
+        }
+    }
+
+    /**
+     * Sets one target's opacity from its layers.
+     */
+    private void compose(int target, long now) {
+        double value = 1.0;
+        int count = 0;
+        for (Slot slot : slots) {
+            if (slot.shape != null && slot.target == target) {
+                value *= slot.shape.valueAt(Math.max(0, now - slot.start));
+                count++;
+            }
+        }
+        apply(target, value, count);
+    }
+
+    /**
+     * Sets every target's opacity from its layers, in one pass over the pool.
+     */
+    private void composeAll(long now) {
+        for (int i = 0; i < targetCount; i++) {
+            composed[i] = 1.0;
+            layers[i] = 0;
+        }
+        for (Slot slot : slots) {
+            if (slot.shape != null) {
+                composed[slot.target] *= slot.shape.valueAt(Math.max(0, now - slot.start));
+                layers[slot.target]++;
+            }
+        }
+        for (int i = 0; i < targetCount; i++) {
+            apply(i, composed[i], layers[i]);
+        }
+    }
+
+    private void apply(int target, double value, int count) {
+        Node node = targets[target];
+        double opacity = count == 0 ? restOpacity[target] : value;
+        boolean visible = count > 0 || !hideAtRest[target];
+        if (node.getOpacity() != opacity) {
+            node.setOpacity(opacity);
+        }
+        if (node.isVisible() != visible) {
+            node.setVisible(visible);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Effects: " + played + " played, " + merged + " merged, " + dropped + " dropped";
+    }
+
+    /**
+     * One reusable place for a running effect.
+     */
+    private static final class Slot {
+        private int target;
+        private Shape shape; // Null when the slot is free
+        private long start;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+This is the ExitListModel class for the Haunted House game.  It keeps the exit combo box's list up to date as the
+player moves, touching only the entries that changed, and lets the player narrow a long list of exits by typing.
+*/
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.Arrays;
+
+/**
+ * The ExitListModel class owns the list of exit names shown by the exit selector.  Moving to a new room compares the
+ * new exits with the ones on screen and only changes the part in the middle that differs, so the list fires at most
+ * two change events, none when the exits are the same, and the selector keeps the cells it already has.  Rooms next
+ * to each other often share exits, such as the way back, at the start or end of their lists.
+ * <p>
+ * Typing a filter shows only the exits whose names start with it, ignoring case.  The filter is answered from a
+ * prefix index of the room's exit names, sorted once the first time the player types in that room, so each key press
+ * costs a binary search plus the matching names.  Because the list can be filtered, the position of an entry in
+ * {@link #getItems()} isn't always the position of the exit in the room; {@link #exitIndexOf(int)} converts one to
+ * the other.
+ */
+public class ExitListModel {
+    private static final String[] NO_EXITS = new String[0];
+
+    private final ObservableList<String> items = FXCollections.observableArrayList();
+    private String[] exits = NO_EXITS;
+    private int[] shown; // Exit index of every item, or null when the list isn't filtered
+    private String filter = "";
+
+    // The prefix index, built the first time the player filters the current room's exits
+    private String[] sortedKeys;
+    private int[] sortedExits;
+
+    /**
+     * Gets the list to show in the exit selector.  It must only be changed through this model.
+     *
+     * @return The observable list of exit names.
+     */
+    public ObservableList<String> getItems() {
+        return items;
+    }
+
+    /**
+     * Shows the exits of a new room, clearing the filter.
+     *
+     * @param roomExits The names of the room's exits, in the room's order.
+     */
+    public void setExits(String[] roomExits) {
+        this.exits = roomExits;
+        this.filter = "";
+        this.shown = null;
+        this.sortedKeys = null;
+        this.sortedExits = null;
+        update(roomExits);
+    }
+
+    /**
+     * Shows only the exits whose names start with some text.
+     *
+     * @param prefix The text the names must start with, ignoring case.  An empty prefix shows every exit.
+     */
+    public void setFilter(String prefix) {
+        filter = prefix;
+        if (prefix.isEmpty()) {
+            shown = null;
+            update(exits);
+            return;
+        }
+
+        if (sortedKeys == null) {
+            buildPrefixIndex();
+        }
+        String key = RoomRegistry.keyOf(prefix);
+        int from = lowerBound(key);
+        int to = lowerBound(key + Character.MAX_VALUE);
+        shown = Arrays.copyOfRange(sortedExits, from, to);
+        String[] names = new String[shown.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = exits[shown[i]];
+        }
+        update(names);
+    }
+
+    /**
+     * Gets the text the exits are being filtered by.
+     *
+     * @return The filter, or an empty string if every exit is shown.
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Converts the position of an entry in {@link #getItems()} to the position of the exit in the room's exits.
+     *
+     * @param itemIndex The position of the entry, such as the selected index of the exit selector.
+     * @return The index of the exit in {@link Room#getExits()}, or -1 if the position is out of range.
+     */
+    public int exitIndexOf(int itemIndex) {
+        if (itemIndex < 0 || itemIndex >= items.size()) return -1;
+        return shown == null ? itemIndex : shown[itemIndex];
+    }
+
+    /**
+     * Sorts the case-folded exit names of the current room, keeping the exit index of each.
+     */
+    private void buildPrefixIndex() {
+        Integer[] order = new Integer[exits.length];
+        String[] keys = new String[exits.length];
+        for (int i = 0; i < exits.length; i++) {
+            order[i] = i;
+            keys[i] = RoomRegistry.keyOf(exits[i]);
+        }
+        Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+
+        sortedKeys = new String[exits.length];
+        sortedExits = new int[exits.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedExits[i] = order[i];
+        }
+    }
+
+    /**
+     * Finds the first position in the prefix index whose key isn't less than the given key.
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedKeys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Changes the list into the given names, only replacing the entries between the longest common start and the
+     * longest common end of the old and new lists.
+     *
+     * @param names The new entries.
+     */
+    private void update(String[] names) {
+        int count = names.length;
+        int oldCount = items.size();
+        int start = 0;
+        while (start < oldCount && start < count && items.get(start).equals(names[start])) {
+            start++;
+        }
+        int oldEnd = oldCount;
+        int newEnd = count;
+        while (oldEnd > start && newEnd > start && items.get(oldEnd - 1).equals(names[newEnd - 1])) {
+            oldEnd--;
+            newEnd--;
+        }
+
+        if (start == 0 && oldEnd == oldCount && newEnd == count) {
+            items.setAll(names); // Nothing in common, so replace everything in one change
+            return;
+        }
+        if (oldEnd - start == 1 && newEnd - start == 1) {
+            items.set(start, names[start]); // Just one entry changed
+            return;
+        }
+        if (oldEnd > start) {
+            items.remove(start, oldEnd);
+        }
+        if (newEnd > start) {
+            items.addAll(start, Arrays.asList(names).subList(start, newEnd));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+This is the ExitLock class for the Haunted House game.  It keeps a door shut until the player finds the item that
+opens it.
+*/
+
+/**
+ * The ExitLock class is an immutable lock on one of a room's exits.  The player can't go through the exit until they
+ * use the key item in the room, after which it stays unlocked for them.  The lock is only on the one side: the exit
+ * back from the other room is a different exit.  Locks are listed in a room's {@code "locks"} field in the rooms
+ * data file:
+ * <pre>
+ * "locks":[{"exit":"Wine Cellar","key":"Rusty Key"}]
+ * </pre>
+ */
+public final class ExitLock {
+    private final String exit;
+    private final String key;
+
+    /**
+     * Constructs a new ExitLock.
+     *
+     * @param exit The name of the exit that is locked.
+     * @param key  The name of the item that unlocks it.
+     * @throws IllegalArgumentException If the exit or key is missing.
+     */
+    public ExitLock(String exit, String key) {
+        if (exit == null || key == null) {
+            throw new IllegalArgumentException("A lock needs an exit and a key");
+        }
+        this.exit = exit;
+        this.key = key;
+    }
+
+    /**
+     * Gets the name of the exit that is locked.
+     *
+     * @return The name of the exit.
+     */
+    public String getExit() {
+        return exit;
+    }
+
+    /**
+     * Gets the name of the item that unlocks the exit.
+     *
+     * @return The name of the key.
+     */
+    public String getKey() {
+        return key;
+    }
+}
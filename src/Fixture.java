@@ -0,0 +1,96 @@
+/*
+This is the Fixture class for the Haunted House game.  It describes something in a room that can't be carried away
+but can be opened, like a chest of drawers, or the chest in the Attic that won't open without a tool.
+*/
+
+/**
+ * The Fixture class is an immutable container in a room.  Opening it shows the items inside, which can then be
+ * taken.  A locked fixture names the item that opens it, and stays shut until the player uses that item in its room.
+ * Fixtures are listed in a room's {@code "fixtures"} field in the rooms data file:
+ * <pre>
+ * "fixtures":[{"name":"Heavy Chest","key":"Fire Poker","contains":[{"name":"Silver Locket"}]}]
+ * </pre>
+ * Only {@code "name"} is required.  Whether a player has opened a fixture is kept in their {@link GameSession}.
+ */
+public final class Fixture {
+    private static final Item[] NO_ITEMS = new Item[0];
+
+    private final String name;
+    private final String description;
+    private final String key;
+    private final Item[] contents;
+    private int id = -1;
+
+    /**
+     * Constructs a new Fixture.
+     *
+     * @param name        The name of the fixture.
+     * @param description What the player sees when they look at the fixture, or null.
+     * @param key         The name of the item that unlocks the fixture, or null if it isn't locked.
+     * @param contents    The items inside the fixture, or null if it is empty.
+     * @throws IllegalArgumentException If the name is missing.
+     */
+    public Fixture(String name, String description, String key, Item[] contents) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A fixture needs a name");
+        }
+        this.name = name;
+        this.description = description;
+        this.key = key;
+        this.contents = contents == null ? NO_ITEMS : contents;
+    }
+
+    /**
+     * Gets the name of the fixture.
+     *
+     * @return The name of the fixture.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the description of the fixture.
+     *
+     * @return The description, or null if the fixture doesn't have one.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the name of the item that unlocks the fixture.
+     *
+     * @return The name of the key, or null if the fixture isn't locked.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the items inside the fixture.  The array must not be changed.
+     *
+     * @return The fixture's contents, which is empty if it holds nothing.
+     */
+    public Item[] getContents() {
+        return contents;
+    }
+
+    /**
+     * Gets the integer ID the fixture was given by the {@link ItemTable} of its house.
+     *
+     * @return The ID of the fixture, or -1 if it hasn't been registered yet.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the integer ID of the fixture.  Only the {@link ItemTable} should call this.
+     *
+     * @param id The ID of the fixture.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+This is the FramePulseMonitor class for the Haunted House game.  It watches the JavaFX pulses while a room fades in,
+to measure how smooth the animation really is.
+*/
+
+import javafx.animation.AnimationTimer;
+import javafx.util.Duration;
+
+/**
+ * The FramePulseMonitor class records the time between JavaFX pulses into the {@link TransitionMetrics.Phase#FX_PULSE}
+ * histogram while it is watching, and counts a dropped frame for every frame period a pulse arrived late.  The same
+ * timer is reused for every transition.
+ */
+public class FramePulseMonitor extends AnimationTimer {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60; // JavaFX pulses at 60 frames per second
+
+    private final TransitionMetrics metrics;
+    private long lastPulse;
+    private long watchUntil;
+
+    /**
+     * Constructs a new FramePulseMonitor.
+     *
+     * @param metrics The metrics to record the pulses in.
+     */
+    public FramePulseMonitor(TransitionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Watches the pulses for a while, such as the length of a fade transition.  Watching again before the last
+     * watch has ended just extends it.
+     *
+     * @param duration How long to watch for.
+     */
+    public void watch(Duration duration) {
+        long now = System.nanoTime();
+        watchUntil = Math.max(watchUntil, now + (long) (duration.toMillis() * 1_000_000));
+        if (lastPulse == 0) {
+            lastPulse = now;
+            start();
+        }
+    }
+
+    @Override
+    public void handle(long now) {
+        long interval = now - lastPulse;
+        lastPulse = now;
+        metrics.recordNanos(TransitionMetrics.Phase.FX_PULSE, interval);
+        if (interval > FRAME_NANOS * 3 / 2) {
+            metrics.addDroppedFrames(Math.round((double) interval / FRAME_NANOS) - 1);
+        }
+
+        if (now >= watchUntil) {
+            stop();
+            lastPulse = 0;
+        }
+    }
+}
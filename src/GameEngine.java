@@ -0,0 +1,544 @@
+/*
+This is the GameEngine class for the Haunted House game.  It holds the rules of moving around the house without any
+JavaFX code, so the game can be played by the JavaFX window, by a server, or by tests, all through the same methods.
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * The GameEngine class moves players between the rooms of a house.  Every player has a session, identified by a
+ * number, and every move returns the {@link RoomState} of the room the player ends up in, along with the room's
+ * {@link Trigger}s that fired.  Players can also take the {@link Item}s they find, open {@link Fixture}s, and use
+ * items to unlock fixtures and exits.
+ */
+public class GameEngine {
+    public static final String ROOMS_FILE = "src/resources/data/rooms.jsonl";
+    public static final String DESCRIPTIONS_FILE = "src/resources/data/descriptions.txt";
+    public static final String START_ROOM = "Front Yard";
+
+    private final RoomRegistry registry;
+    private final RoomGraph graph;
+    private final TriggerTable triggers;
+    private final ItemTable items;
+    private final int startRoomId;
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private volatile SessionStore sessionStore;
+    private final Set<Long> attached = ConcurrentHashMap.newKeySet(); // Sessions a connection is playing
+    private final List<LongConsumer> endListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a new GameEngine for a house.
+     *
+     * @param registry      The registry holding every room of the house.
+     * @param startRoomName The name of the room every player starts in.
+     * @throws IllegalArgumentException If there is no room with the start room's name, a room has too many
+     *                                  triggers, or the house's items, fixtures and locks don't fit together.
+     */
+    public GameEngine(RoomRegistry registry, String startRoomName) {
+        this.registry = registry;
+        this.graph = new RoomGraph(registry);
+        this.triggers = new TriggerTable(registry);
+        this.items = new ItemTable(registry);
+
+        Room startRoom = registry.findByName(startRoomName);
+        if (startRoom == null) {
+            throw new IllegalArgumentException("There is no room called " + startRoomName);
+        }
+        this.startRoomId = startRoom.getId();
+    }
+
+    /**
+     * Loads a house from its data files and constructs a GameEngine for it.
+     *
+     * @param roomsFile        The JSON lines file with one room per line.
+     * @param descriptionsFile The UTF-8 file holding the room descriptions.
+     * @param startRoomName    The name of the room every player starts in.
+     * @return The new GameEngine.
+     * @throws IOException If the data files can't be read.
+     */
+    public static GameEngine load(Path roomsFile, Path descriptionsFile, String startRoomName) throws IOException {
+        return new GameEngine(new RoomRegistry(RoomDataReader.readAll(roomsFile, descriptionsFile)), startRoomName);
+    }
+
+    /**
+     * Loads the haunted house that ships with the game, starting in the Front Yard.  Another house, such as one made
+     * by {@link HouseGenerator}, can be loaded instead by setting the haunted.roomsFile, haunted.descriptionsFile
+     * and haunted.startRoom system properties.
+     *
+     * @return The new GameEngine.
+     * @throws IOException If the data files can't be read.
+     */
+    public static GameEngine loadDefault() throws IOException {
+        return load(Path.of(System.getProperty("haunted.roomsFile", ROOMS_FILE)),
+                Path.of(System.getProperty("haunted.descriptionsFile", DESCRIPTIONS_FILE)),
+                System.getProperty("haunted.startRoom", START_ROOM));
+    }
+
+    /**
+     * Starts a new session in the start room, replacing any session with the same ID.
+     *
+     * @param sessionId The ID of the session.
+     * @return The state of the start room, with any of its triggers that fired.
+     */
+    public RoomState startSession(long sessionId) {
+        GameSession session = new GameSession(sessionId, registry.size(), items.getFlagCount());
+        RoomState start = triggers.enter(startRoomId, session);
+        session.setCurrent(start);
+        sessions.put(sessionId, session);
+        save(session);
+        return start;
+    }
+
+    /**
+     * Ends a session and forgets its state, including any saved copy of it.
+     *
+     * @param sessionId The ID of the session.
+     */
+    public void endSession(long sessionId) {
+        if (sessions.remove(sessionId) == null) return;
+        SessionStore store = sessionStore;
+        if (store != null) {
+            try {
+                store.delete(sessionId);
+            } catch (UncheckedIOException e) {
+                System.err.println("Couldn't delete saved session " + sessionId + ": " + e.getMessage());
+            }
+        }
+        for (LongConsumer listener : endListeners) {
+            listener.accept(sessionId);
+        }
+    }
+
+    /**
+     * Adds a listener told the ID of every session that ends, whether it was quit or ended as idle, so a front end
+     * can forget what it keeps about the session.
+     *
+     * @param listener Receives the ID of each ended session, on the thread that ended it.
+     */
+    public void addSessionEndListener(LongConsumer listener) {
+        endListeners.add(listener);
+    }
+
+    /**
+     * Marks a session as held by a connection, so no other connection can take it over and it isn't ended as idle.
+     *
+     * @param sessionId The ID of the session.
+     * @return True if the session was free, false if another connection already holds it.
+     */
+    public boolean attachSession(long sessionId) {
+        return attached.add(sessionId);
+    }
+
+    /**
+     * Lets go of a session held by a connection.  The session itself carries on, to be picked up again later.
+     *
+     * @param sessionId The ID of the session.
+     */
+    public void detachSession(long sessionId) {
+        attached.remove(sessionId);
+    }
+
+    /**
+     * Ends every session that no connection holds and that hasn't been used for a while, along with its saved copy.
+     *
+     * @param maxIdleMillis How long a session may go unused, in milliseconds.
+     * @return The number of sessions ended.
+     */
+    public int expireSessions(long maxIdleMillis) {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (GameSession session : sessions.values()) {
+            long sessionId = session.getId();
+            // Held while it is ended, so a connection can't attach to it halfway and be left with a deleted session
+            if (now - session.getLastUsed() > maxIdleMillis && attached.add(sessionId)) {
+                try {
+                    if (now - session.getLastUsed() > maxIdleMillis) { // It may have been used before it was held
+                        endSession(sessionId);
+                        expired++;
+                    }
+                } finally {
+                    attached.remove(sessionId);
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Sets the store every session is saved to after it changes.
+     *
+     * @param sessionStore The session store, or null to stop saving sessions.
+     */
+    public void setSessionStore(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * Brings back every session saved in a store, replacing any session with the same ID, and then saves every
+     * further change to the same store.
+     *
+     * @param store The store to restore from.
+     * @return The number of sessions restored.
+     * @throws IOException If the store can't be read.
+     */
+    public int restoreSessions(SessionStore store) throws IOException {
+        store.restore((sessionId, roomId, triggeredEffects, visited, flags, lastUsed) -> {
+            if (roomId < 0) {
+                sessions.remove(sessionId);
+            } else {
+                RoomState current = triggers.baseState(roomId);
+                sessions.put(sessionId, new GameSession(sessionId, current, visited, triggeredEffects, flags,
+                        lastUsed));
+            }
+        });
+        this.sessionStore = store;
+        return sessions.size();
+    }
+
+    /**
+     * Checks whether sessions are being saved to a session store.
+     *
+     * @return True if there is a session store.
+     */
+    public boolean isSavingSessions() {
+        return sessionStore != null;
+    }
+
+    /**
+     * Writes every session to a new snapshot in the session store and empties its journal.  Nothing happens if there
+     * is no session store.
+     *
+     * @throws IOException If the snapshot can't be written.
+     */
+    public void compactSessions() throws IOException {
+        SessionStore store = sessionStore;
+        if (store != null) {
+            store.compact(sessions.values());
+        }
+    }
+
+    /**
+     * Appends a session's state to the session store, if there is one.  A failed save is reported rather than
+     * stopping the game.
+     *
+     * @param session The session that changed.
+     */
+    private void save(GameSession session) {
+        SessionStore store = sessionStore;
+        if (store == null) return;
+        try {
+            store.save(session);
+        } catch (UncheckedIOException e) {
+            System.err.println("Couldn't save session " + session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds a session, and records that it is being used.
+     *
+     * @param sessionId The ID of the session.
+     * @return The session, or null if there is no such session.
+     */
+    private GameSession find(long sessionId) {
+        GameSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    /**
+     * Gets the state of the room a session is in, without moving.
+     *
+     * @param sessionId The ID of the session.
+     * @return The current room state, or null if there is no such session.
+     */
+    public RoomState look(long sessionId) {
+        GameSession session = find(sessionId);
+        return session == null ? null : session.getCurrent();
+    }
+
+    /**
+     * Moves a session through the exit with the given name.
+     *
+     * @param sessionId The ID of the session.
+     * @param exitName  The name of the exit, ignoring case.
+     * @return The state of the room the player moved into, or null if the session doesn't exist, the current room
+     *         has no such exit, or the exit is locked.
+     */
+    public RoomState move(long sessionId, String exitName) {
+        GameSession session = find(sessionId);
+        if (session == null) return null;
+
+        int exitIndex = exitIndexOf(session, exitName);
+        if (exitIndex < 0) return null;
+        return move(sessionId, exitIndex);
+    }
+
+    /**
+     * Moves a session through the exit at the given position in the current room's exit list.
+     *
+     * @param sessionId The ID of the session.
+     * @param exitIndex The index of the exit in {@link Room#getExits()}.
+     * @return The state of the room the player moved into, or null if the session doesn't exist, the index is out of
+     *         range, the exit leads to an unknown room, or the exit is locked.
+     */
+    public RoomState move(long sessionId, int exitIndex) {
+        GameSession session = find(sessionId);
+        if (session == null) return null;
+
+        Room room = session.getCurrent().getRoom();
+        Room[] exitRooms = room.getExitRooms();
+        if (exitIndex < 0 || exitIndex >= exitRooms.length || exitRooms[exitIndex] == null) return null;
+        if (items.isLocked(session, room.getId(), exitIndex)) return null;
+        return enter(session, exitRooms[exitIndex]);
+    }
+
+    /**
+     * Checks whether an exit of a session's current room is locked for that player.
+     *
+     * @param sessionId The ID of the session.
+     * @param exitIndex The index of the exit in {@link Room#getExits()}.
+     * @return True if the exit is locked, false if it isn't or the session doesn't exist.
+     */
+    public boolean isLocked(long sessionId, int exitIndex) {
+        GameSession session = find(sessionId);
+        return session != null && items.isLocked(session, session.getCurrent().getRoom().getId(), exitIndex);
+    }
+
+    /**
+     * Checks whether an exit of a session's current room is locked for that player.
+     *
+     * @param sessionId The ID of the session.
+     * @param exitName  The name of the exit, ignoring case.
+     * @return True if the exit is locked, false if it isn't, there is no such exit or the session doesn't exist.
+     */
+    public boolean isLocked(long sessionId, String exitName) {
+        GameSession session = find(sessionId);
+        return session != null && isLocked(sessionId, exitIndexOf(session, exitName));
+    }
+
+    /**
+     * Finds the position of an exit in a session's current room.
+     *
+     * @return The index of the exit, or -1 if the room has no exit with that name.
+     */
+    private int exitIndexOf(GameSession session, String exitName) {
+        Room target = registry.findByName(exitName);
+        if (target == null) return -1;
+        Room[] exitRooms = session.getCurrent().getRoom().getExitRooms();
+        for (int i = 0; i < exitRooms.length; i++) {
+            if (exitRooms[i] == target) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Takes an item the player can see in their room.
+     *
+     * @param sessionId The ID of the session.
+     * @param itemName  The name of the item, ignoring case.
+     * @return What happened.
+     */
+    public ActionResult take(long sessionId, String itemName) {
+        GameSession session = find(sessionId);
+        if (session == null) return ActionResult.NO_SESSION;
+        return saveIfChanged(session, items.take(session, itemName));
+    }
+
+    /**
+     * Opens a fixture in the player's room, showing the items inside.
+     *
+     * @param sessionId   The ID of the session.
+     * @param fixtureName The name of the fixture, ignoring case.
+     * @return What happened.
+     */
+    public ActionResult open(long sessionId, String fixtureName) {
+        return open(sessionId, fixtureName, null);
+    }
+
+    /**
+     * Opens a fixture in the player's room, showing the items inside, and tells which fixture it was.
+     *
+     * @param sessionId   The ID of the session.
+     * @param fixtureName The name of the fixture, ignoring case.
+     * @param opened      Receives the fixture if it opened, so the player can be shown its description, or null.
+     * @return What happened.
+     */
+    public ActionResult open(long sessionId, String fixtureName, List<Fixture> opened) {
+        GameSession session = find(sessionId);
+        if (session == null) return ActionResult.NO_SESSION;
+        return saveIfChanged(session, items.open(session, fixtureName, opened));
+    }
+
+    /**
+     * Uses an item the player carries, unlocking every fixture and exit in their room that it is the key to.
+     *
+     * @param sessionId The ID of the session.
+     * @param itemName  The name of the item, ignoring case.
+     * @return What happened.
+     */
+    public ActionResult use(long sessionId, String itemName) {
+        return use(sessionId, itemName, null);
+    }
+
+    /**
+     * Uses an item the player carries, unlocking every fixture and exit in their room that it is the key to, and
+     * tells which fixtures it opened.
+     *
+     * @param sessionId The ID of the session.
+     * @param itemName  The name of the item, ignoring case.
+     * @param opened    Receives the fixtures the item opened, so the player can be shown what is inside, or null.
+     * @return What happened.
+     */
+    public ActionResult use(long sessionId, String itemName, List<Fixture> opened) {
+        GameSession session = find(sessionId);
+        if (session == null) return ActionResult.NO_SESSION;
+        return saveIfChanged(session, items.use(session, itemName, opened));
+    }
+
+    private ActionResult saveIfChanged(GameSession session, ActionResult result) {
+        if (result.isSuccess()) {
+            save(session);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the items a player can see in their room and take.
+     *
+     * @param sessionId The ID of the session.
+     * @return The items, or null if there is no such session.
+     */
+    public Item[] getItemsHere(long sessionId) {
+        GameSession session = find(sessionId);
+        return session == null ? null : items.itemsHere(session);
+    }
+
+    /**
+     * Gets the fixtures in a player's room that they haven't opened yet.
+     *
+     * @param sessionId The ID of the session.
+     * @return The closed fixtures, or null if there is no such session.
+     */
+    public Fixture[] getClosedFixturesHere(long sessionId) {
+        GameSession session = find(sessionId);
+        return session == null ? null : items.closedFixturesHere(session);
+    }
+
+    /**
+     * Gets the items a player carries.
+     *
+     * @param sessionId The ID of the session.
+     * @return The carried items, or null if there is no such session.
+     */
+    public Item[] getInventory(long sessionId) {
+        GameSession session = find(sessionId);
+        return session == null ? null : items.inventory(session);
+    }
+
+    /**
+     * Moves a session into a room, firing the room's triggers.
+     *
+     * @param session The session that is moving.
+     * @param room    The room to move into.
+     * @return The state of the room, with the triggers that fired.
+     */
+    private RoomState enter(GameSession session, Room room) {
+        RoomState next = triggers.enter(room.getId(), session); // Before the visit, so first visits can be told
+        session.setCurrent(next);
+        save(session);
+        return next;
+    }
+
+    /**
+     * Gets the session with the given ID.
+     *
+     * @param sessionId The ID of the session.
+     * @return The session, or null if there is no such session.
+     */
+    public GameSession getSession(long sessionId) {
+        return find(sessionId);
+    }
+
+    /**
+     * Gets the registry holding every room of the house.
+     *
+     * @return The room registry.
+     */
+    public RoomRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Gets the table of every item, fixture and exit lock in the house.
+     *
+     * @return The item table.
+     */
+    public ItemTable getItemTable() {
+        return items;
+    }
+
+    /**
+     * Gets the graph of the exits between the rooms of the house.
+     *
+     * @return The room graph.
+     */
+    public RoomGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Checks the house for exits to unknown rooms and for rooms that can't be reached from the start room.
+     *
+     * @return A description of every problem found, or an empty list if there are none.
+     */
+    public List<String> validate() {
+        return graph.validate(startRoomId);
+    }
+
+    /**
+     * Gets how many moves a session is away from a room, for hints like "the Attic is 4 rooms away".
+     *
+     * @param sessionId The ID of the session.
+     * @param roomName  The name of the room, ignoring case.
+     * @return The number of moves, or {@link RoomGraph#UNREACHABLE} if the session or room doesn't exist or the room
+     *         can't be reached.
+     */
+    public int distanceTo(long sessionId, String roomName) {
+        GameSession session = find(sessionId);
+        Room target = registry.findByName(roomName);
+        if (session == null || target == null) return RoomGraph.UNREACHABLE;
+        return graph.distance(session.getCurrent().getRoom().getId(), target.getId());
+    }
+
+    /**
+     * Gets the highest ID of any session, so new sessions can be numbered after the ones that were restored.
+     *
+     * @return The highest session ID, or -1 if there are no sessions.
+     */
+    public long getMaxSessionId() {
+        long max = -1;
+        for (long sessionId : sessions.keySet()) {
+            max = Math.max(max, sessionId);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the number of sessions that are currently active.
+     *
+     * @return The number of sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+}
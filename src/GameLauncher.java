@@ -0,0 +1,23 @@
+/*
+This is the GameLauncher class for the Haunted House game.  It starts the game window from a plain main method, so the
+game can be run from a single jar with JavaFX on the class path.
+*/
+
+import javafx.application.Application;
+
+/**
+ * The GameLauncher class is the main class of the game jar built by the {@code startup} Maven profile.  Java refuses
+ * to start a main class that extends {@link Application} unless JavaFX is on the module path, so this class, which
+ * doesn't, launches {@link Main} instead.
+ */
+public class GameLauncher {
+    /**
+     * Launches the game window and waits for it to close.
+     *
+     * @param args Command-line arguments, passed on to the game.
+     */
+    public static void main(String[] args) {
+        Application.launch(Main.class, args);
+        System.exit(0); // Don't wait for background loaders and players; everything was saved when the window closed
+    }
+}
@@ -0,0 +1,182 @@
+/*
+This is the GameLoader class for the Haunted House game.  It loads everything the game needs before the first room
+can be shown on background threads, at the same time, so the game window can appear straight away.
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The GameLoader class loads the house, the saved game and the content pack of the starting language on one thread
+ * while the texture atlas loads on another, and then decodes the image of the room the player will start in, so the
+ * game window only has to show it.  None of it touches the scene, so the window can be built and shown while the
+ * loader runs.  How long each part took is kept for the startup report.
+ */
+public class GameLoader {
+    private final ImageCache imageCache;
+    private final Path saveDir;
+    private final long sessionId;
+    private final String locale;
+    private final boolean newGame;
+    private final ExecutorService executor;
+
+    // Set by the loader threads before the future completes, which publishes them to whoever waits on it
+    private GameEngine engine;
+    private SessionStore sessionStore;
+    private ContentPacks contentPacks;
+    private TextureAtlas atlas;
+    private RoomState firstRoom;
+    private long houseNanos;
+    private long savedGameNanos;
+    private long contentPackNanos;
+    private long atlasNanos;
+    private long firstImageNanos;
+
+    /**
+     * Constructs a new GameLoader.
+     *
+     * @param imageCache The cache to decode the first room's image into.
+     * @param saveDir    The folder the saved game is kept in.
+     * @param sessionId  The ID of the player's session, which is carried on if it was saved or else started.
+     * @param locale     The language to start in.
+     * @param newGame    True to throw away the saved game and start over.
+     */
+    public GameLoader(ImageCache imageCache, Path saveDir, long sessionId, String locale, boolean newGame) {
+        this.imageCache = imageCache;
+        this.saveDir = saveDir;
+        this.sessionId = sessionId;
+        this.locale = locale;
+        this.newGame = newGame;
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "game-loader");
+            thread.setDaemon(true); // Closing the window while the house loads shouldn't wait for it
+            return thread;
+        });
+    }
+
+    /**
+     * Starts loading.
+     *
+     * @return A future that completes with this loader once everything is loaded, or with the exception that stopped
+     *         the house from loading.  A saved game that can't be read only stops the game being saved.
+     */
+    public CompletableFuture<GameLoader> load() {
+        CompletableFuture<TextureAtlas> atlasLoad = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            TextureAtlas loaded = TextureAtlas.load(TextureAtlas.ATLAS_DIR, TextureAtlas.GAME_WINDOW_WIDTH);
+            atlasNanos = System.nanoTime() - start;
+            return loaded;
+        }, executor);
+        CompletableFuture<RoomState> houseLoad = CompletableFuture.supplyAsync(this::loadHouse, executor);
+
+        return houseLoad.thenCombine(atlasLoad, (room, loadedAtlas) -> {
+            long start = System.nanoTime();
+            imageCache.get(loadedAtlas.sourceOf(room.getRoom().getImagePath())); // A cache hit when it's shown
+            firstImageNanos = System.nanoTime() - start;
+            atlas = loadedAtlas;
+            firstRoom = room;
+            return this;
+        }).whenComplete((loader, error) -> executor.shutdown());
+    }
+
+    /**
+     * Loads the house and the saved game, and finds the room the player starts in.
+     *
+     * @return The state of the room to show first.
+     */
+    private RoomState loadHouse() {
+        long start = System.nanoTime();
+        try {
+            engine = GameEngine.loadDefault();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String problem : engine.validate()) {
+            System.err.println(problem);
+        }
+        houseNanos = System.nanoTime() - start;
+
+        // A language that can't be loaded leaves the game in English
+        start = System.nanoTime();
+        contentPacks = new ContentPacks(Path.of(ContentPacks.PACK_DIR), engine.getRegistry());
+        try {
+            contentPacks.setActive(contentPacks.load(locale));
+        } catch (IOException e) {
+            System.err.println("Couldn't load the " + locale + " content pack: " + e.getMessage());
+        }
+        contentPackNanos = System.nanoTime() - start;
+
+        // The game is saved on every move, so it can carry on after the window is closed or the game crashes
+        start = System.nanoTime();
+        try {
+            sessionStore = new SessionStore(saveDir, engine.getRegistry().size(), engine.getItemTable().getFlagCount());
+            engine.restoreSessions(sessionStore);
+        } catch (IOException e) {
+            System.err.println("Couldn't load the saved game: " + e.getMessage());
+        }
+        if (newGame) {
+            engine.endSession(sessionId); // Deletes the saved copy too, so the new game is what gets saved
+        }
+        RoomState savedRoom = engine.look(sessionId); // Carry on from the saved game if there is one
+        RoomState room = savedRoom != null ? savedRoom : engine.startSession(sessionId);
+        savedGameNanos = System.nanoTime() - start;
+        return room;
+    }
+
+    /**
+     * Gets the game engine running the house.
+     *
+     * @return The game engine.
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the store the game is saved to.
+     *
+     * @return The session store, or null if the saved game couldn't be opened.
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * Gets the content packs, with the language the game starts in active.
+     *
+     * @return The content packs.
+     */
+    public ContentPacks getContentPacks() {
+        return contentPacks;
+    }
+
+    /**
+     * Gets the texture atlas.
+     *
+     * @return The texture atlas, which is empty if none has been built.
+     */
+    public TextureAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Gets the room the player starts in: the one they were in when the game was saved, or the start room.
+     *
+     * @return The state of the first room to show.
+     */
+    public RoomState getFirstRoom() {
+        return firstRoom;
+    }
+
+    @Override
+    public String toString() {
+        return "Loaded in the background: house " + houseNanos / 1_000_000 + " ms, saved game "
+                + savedGameNanos / 1_000_000 + " ms, content pack " + contentPackNanos / 1_000_000
+                + " ms, texture atlas " + atlasNanos / 1_000_000 + " ms, first image "
+                + firstImageNanos / 1_000_000 + " ms";
+    }
+}
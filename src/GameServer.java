@@ -0,0 +1,453 @@
+/*
+This is the GameServer class for the Haunted House game.  It lets many players explore the house at the same time
+over a simple text protocol on a local socket, with every player getting their own session in the game engine.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The GameServer class accepts connections on the loopback interface and runs one task per connected player.  On
+ * Java 21 and later every task runs on its own virtual thread, so idle players cost almost nothing; on older Java
+ * versions a cached pool of platform threads is used instead.
+ * <p>
+ * The protocol is line based.  Every command is one line, and every reply is one line made of tab separated fields:
+ * <pre>
+ * LOOK            -> ROOM  name  effect  exit1  exit2 ...
+ * GO exit name    -> ROOM  name  effect  exit1  exit2 ...   (or ERR message)
+ * DESCRIBE        -> DESC  description, with new lines and tabs written as \n and \t
+ * VISITED         -> VISITED  count
+ * SESSION         -> SESSION  token                          (what to RESUME the session with later)
+ * RESUME token    -> ROOM  name  effect  exit1  exit2 ...   (or ERR message)
+ * ITEMS           -> ITEMS  item1  item2 ...               (the items the player can take here)
+ * FIXTURES        -> FIXTURES  fixture1  fixture2 ...      (the things here the player hasn't opened)
+ * INVENTORY       -> INVENTORY  item1  item2 ...
+ * TAKE item       -> TAKEN  item                           (or ERR message)
+ * OPEN fixture    -> OPENED  fixture                       (or ERR message)
+ * USE item        -> UNLOCKED  item                        (or ERR message)
+ * QUIT            -> BYE
+ * </pre>
+ * A ROOM line is also sent as soon as a player connects.  Its effect field lists the effects that fired as the
+ * player entered the room, separated by commas, or is NONE.
+ * <p>
+ * When the engine saves sessions to a {@link SessionStore}, a player who disconnects without quitting keeps their
+ * session, even across a restart of the server, and can pick it up again on a new connection with RESUME and the
+ * token SESSION gave them.  A session can only be played on one connection at a time, and one that nobody has
+ * played for {@code haunted.sessionIdleMinutes} (a day by default) is ended.  Any command other than RESUME about a
+ * session that has ended is answered with ERR.
+ */
+public class GameServer {
+    private static final int DEFAULT_PORT = 4000;
+    private static final String DEFAULT_SAVE_DIR = "saves/server";
+    private static final long QUIT = -1; // Returned by handle() when the player quits
+    private static final String NO_SESSION = "ERR Your session has ended, RESUME another or reconnect\n";
+
+    private final GameEngine engine;
+    private final int port;
+    private final SessionTokens tokens;
+    private final AtomicLong nextSessionId;
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Constructs a new GameServer.  New sessions are numbered after any sessions the engine already has.
+     *
+     * @param engine The game engine shared by every player.
+     * @param port   The port to listen on.
+     * @param tokens Gives players the tokens they resume their sessions with.
+     */
+    public GameServer(GameEngine engine, int port, SessionTokens tokens) {
+        this.engine = engine;
+        this.port = port;
+        this.tokens = tokens;
+        this.nextSessionId = new AtomicLong(Math.max(1, engine.getMaxSessionId() + 1));
+    }
+
+    /**
+     * Accepts connections until the server is stopped.  This method blocks.
+     *
+     * @throws IOException If the server socket can't be opened.
+     */
+    public void run() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+             ExecutorServiceCloser players = new ExecutorServiceCloser(newPlayerExecutor())) {
+            serverSocket = server;
+            System.out.println("Haunted House server listening on " + server.getLocalSocketAddress());
+            while (!server.isClosed()) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException e) {
+                    if (server.isClosed()) break; // stop() was called
+                    throw e;
+                }
+                players.executor.execute(() -> serve(socket));
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new connections.
+     *
+     * @throws IOException If the server socket can't be closed.
+     */
+    public void stop() throws IOException {
+        ServerSocket server = serverSocket;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Creates the executor that runs one task per player, preferring virtual threads when the running Java version
+     * has them.  Reflection is used so the game still compiles and runs on Java 17.
+     *
+     * @return The executor for player tasks.
+     */
+    static ExecutorService newPlayerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "player");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Plays one player's game until they quit or disconnect.
+     *
+     * @param socket The player's connection.
+     */
+    private void serve(Socket socket) {
+        long sessionId = nextSessionId.getAndIncrement();
+        engine.attachSession(sessionId);
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true); // Replies are tiny, don't wait to fill a packet
+
+            writeRoom(out, engine.startSession(sessionId));
+            out.flush();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                long nextId = handle(sessionId, line.trim(), out);
+                if (nextId == QUIT) {
+                    engine.endSession(sessionId);
+                    out.write("BYE\n");
+                    out.flush();
+                    break;
+                }
+                sessionId = nextId;
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The player disconnected, there's nothing to tell them
+        } finally {
+            engine.detachSession(sessionId);
+            if (!engine.isSavingSessions()) {
+                engine.endSession(sessionId); // Without a store there's no way to come back to the session
+            }
+        }
+    }
+
+    /**
+     * Handles one command from a player.
+     *
+     * @param sessionId The player's session ID.
+     * @param command   The command line, without surrounding whitespace.
+     * @param out       Where to write the reply.
+     * @return The session ID to use for the next command, which only changes on RESUME, or QUIT if the player asked
+     *         to quit.
+     * @throws IOException If the reply can't be written.
+     */
+    private long handle(long sessionId, String command, Writer out) throws IOException {
+        int space = command.indexOf(' ');
+        String verb = (space < 0 ? command : command.substring(0, space)).toUpperCase(Locale.ROOT);
+        String argument = space < 0 ? "" : command.substring(space + 1).trim();
+
+        switch (verb) {
+            case "LOOK":
+                RoomState here = engine.look(sessionId);
+                if (here == null) {
+                    out.write(NO_SESSION);
+                } else {
+                    writeRoom(out, here);
+                }
+                return sessionId;
+            case "GO":
+                RoomState next = engine.move(sessionId, argument);
+                if (next == null && engine.isLocked(sessionId, argument)) {
+                    out.write("ERR The way to " + argument + " is locked\n");
+                } else if (next == null) {
+                    out.write("ERR There is no exit called " + argument + "\n");
+                } else {
+                    writeRoom(out, next);
+                }
+                return sessionId;
+            case "DESCRIBE":
+                RoomState described = engine.look(sessionId);
+                if (described == null) {
+                    out.write(NO_SESSION);
+                    return sessionId;
+                }
+                String description = described.getRoom().getDescription();
+                out.write("DESC\t");
+                out.write(description.replace("\\", "\\\\").replace("\n", "\\n").replace("\t", "\\t"));
+                out.write('\n');
+                return sessionId;
+            case "VISITED":
+                GameSession session = engine.getSession(sessionId);
+                out.write(session == null ? NO_SESSION : "VISITED\t" + session.getVisitedCount() + "\n");
+                return sessionId;
+            case "SESSION":
+                out.write("SESSION\t" + tokens.issue(sessionId) + "\n");
+                return sessionId;
+            case "RESUME":
+                return resume(sessionId, argument, out);
+            case "ITEMS":
+                writeNames(out, "ITEMS", engine.getItemsHere(sessionId));
+                return sessionId;
+            case "FIXTURES":
+                Fixture[] fixtures = engine.getClosedFixturesHere(sessionId);
+                if (fixtures == null) {
+                    out.write(NO_SESSION);
+                    return sessionId;
+                }
+                out.write("FIXTURES");
+                for (Fixture fixture : fixtures) {
+                    out.write('\t');
+                    out.write(fixture.getName());
+                }
+                out.write('\n');
+                return sessionId;
+            case "INVENTORY":
+                writeNames(out, "INVENTORY", engine.getInventory(sessionId));
+                return sessionId;
+            case "TAKE":
+                writeResult(out, engine.take(sessionId, argument), argument);
+                return sessionId;
+            case "OPEN":
+                writeResult(out, engine.open(sessionId, argument), argument);
+                return sessionId;
+            case "USE":
+                writeResult(out, engine.use(sessionId, argument), argument);
+                return sessionId;
+            case "QUIT":
+                return QUIT;
+            default:
+                out.write("ERR Unknown command " + verb + "\n");
+                return sessionId;
+        }
+    }
+
+    /**
+     * Switches a connection to an earlier session, ending the session the connection was using.  The session must
+     * not be in play on another connection.
+     *
+     * @param sessionId The session the connection is using now.
+     * @param argument  The token of the session to resume.
+     * @param out       Where to write the reply.
+     * @return The session ID to use from now on.
+     * @throws IOException If the reply can't be written.
+     */
+    private long resume(long sessionId, String argument, Writer out) throws IOException {
+        long resumedId = tokens.redeem(argument);
+        if (resumedId == sessionId) {
+            RoomState state = engine.look(sessionId);
+            if (state == null) {
+                out.write(NO_SESSION);
+            } else {
+                writeRoom(out, state);
+            }
+            return sessionId;
+        }
+        if (resumedId < 0 || engine.getSession(resumedId) == null) {
+            out.write("ERR There is no session with that token\n");
+            return sessionId;
+        }
+        if (!engine.attachSession(resumedId)) {
+            out.write("ERR That session is being played on another connection\n");
+            return sessionId;
+        }
+        RoomState state = engine.look(resumedId);
+        if (state == null) { // It ended between the two checks
+            engine.detachSession(resumedId);
+            out.write("ERR There is no session with that token\n");
+            return sessionId;
+        }
+        engine.detachSession(sessionId);
+        engine.endSession(sessionId);
+        writeRoom(out, state);
+        return resumedId;
+    }
+
+    /**
+     * Writes a ROOM reply.
+     *
+     * @param out   Where to write the reply.
+     * @param state The state of the room the player is in.
+     * @throws IOException If the reply can't be written.
+     */
+    private static void writeRoom(Writer out, RoomState state) throws IOException {
+        Room room = state.getRoom();
+        out.write("ROOM\t");
+        out.write(room.getName());
+        out.write('\t');
+        Trigger[] fired = state.getFired();
+        if (fired.length == 0) {
+            out.write(RoomEffect.NONE.name());
+        }
+        for (int i = 0; i < fired.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(fired[i].getEffect().name());
+        }
+        for (String exit : room.getExits()) {
+            out.write('\t');
+            out.write(exit);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes a line of item names.
+     *
+     * @param out   The connection to the player.
+     * @param reply The first field of the line.
+     * @param items The items to name, or null if the session has ended.
+     * @throws IOException If the line can't be written.
+     */
+    private static void writeNames(Writer out, String reply, Item[] items) throws IOException {
+        if (items == null) {
+            out.write(NO_SESSION);
+            return;
+        }
+        out.write(reply);
+        for (Item item : items) {
+            out.write('\t');
+            out.write(item.getName());
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes the result of a take, open or use command.
+     *
+     * @param out    The connection to the player.
+     * @param result What happened.
+     * @param name   The name the player gave.
+     * @throws IOException If the line can't be written.
+     */
+    private static void writeResult(Writer out, ActionResult result, String name) throws IOException {
+        if (result.isSuccess()) {
+            out.write(result.name() + "\t" + name + "\n");
+        } else {
+            out.write("ERR " + result.describe(name) + "\n");
+        }
+    }
+
+    /**
+     * Lets an ExecutorService be used in a try-with-resources statement on Java 17, where it isn't AutoCloseable.
+     */
+    private static final class ExecutorServiceCloser implements AutoCloseable {
+        private final ExecutorService executor;
+
+        ExecutorServiceCloser(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The main method to start the server.  Sessions are saved as described in
+     * {@link #saveSessions(GameEngine, String)}.
+     *
+     * @param args Command-line arguments: an optional port number, 4000 by default.
+     * @throws IOException If the house or the saved sessions can't be loaded, or the port can't be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameEngine engine = GameEngine.loadDefault();
+        SessionTokens tokens = saveSessions(engine, DEFAULT_SAVE_DIR);
+        new GameServer(engine, port, tokens).run();
+    }
+
+    /**
+     * Restores the sessions saved in the folder named by the haunted.saveDir system property, and keeps saving
+     * them there: every haunted.compactSeconds seconds, sessions nobody has played for haunted.sessionIdleMinutes
+     * are ended and the rest are compacted, and they are compacted again when the program shuts down.
+     *
+     * @param engine         The game engine.
+     * @param defaultSaveDir The folder to use if haunted.saveDir isn't set.
+     * @return The tokens for the saved sessions, whose key is kept in the same folder.
+     * @throws IOException If the saved sessions or their key can't be loaded.
+     */
+    static SessionTokens saveSessions(GameEngine engine, String defaultSaveDir) throws IOException {
+        Path saveDir = Path.of(System.getProperty("haunted.saveDir", defaultSaveDir));
+        SessionStore store = new SessionStore(saveDir, engine.getRegistry().size(),
+                engine.getItemTable().getFlagCount());
+        long restoreStart = System.nanoTime();
+        int restored = engine.restoreSessions(store);
+        System.out.println("Restored " + restored + " sessions in "
+                + (System.nanoTime() - restoreStart) / 1_000_000 + " ms");
+
+        long compactSeconds = Long.getLong("haunted.compactSeconds", 60);
+        ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long maxIdleMillis = TimeUnit.MINUTES.toMillis(Long.getLong("haunted.sessionIdleMinutes", 24 * 60));
+        compactor.scheduleWithFixedDelay(() -> {
+            int expired = engine.expireSessions(maxIdleMillis);
+            if (expired > 0) {
+                System.out.println("Ended " + expired + " idle sessions");
+            }
+            compact(engine);
+        }, compactSeconds, compactSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            compactor.shutdownNow();
+            compact(engine);
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Couldn't close the session store: " + e.getMessage());
+            }
+        }, "session-saver"));
+        return SessionTokens.load(saveDir);
+    }
+
+    /**
+     * Compacts the engine's saved sessions, reporting rather than throwing any failure.
+     *
+     * @param engine The game engine.
+     */
+    private static void compact(GameEngine engine) {
+        try {
+            engine.compactSessions();
+        } catch (IOException e) {
+            System.err.println("Couldn't compact the saved sessions: " + e.getMessage());
+        }
+    }
+}
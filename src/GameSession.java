@@ -0,0 +1,202 @@
+/*
+This is the GameSession class for the Haunted House game.  It holds everything the game engine knows about one
+player, so that many players can explore the same house at once.
+*/
+
+/**
+ * The GameSession class holds the state of one player's game: the room they are in, the rooms they have visited,
+ * the special effects they have seen, and what they have done to the house: the items they carry, the fixtures
+ * they opened and the exits they unlocked.  All of it is tracked by ID in fixed size arrays of bits, so the rooms
+ * and items themselves can be shared by every session, a session costs a few words per 64 rooms or things, and the
+ * session can be saved as a fixed size record.  The {@link ItemTable} decides which flag bit stands for what.
+ */
+public class GameSession {
+    private final long id;
+    private RoomState current;
+    private final long[] visited; // One bit per room ID
+    private int visitedCount;
+    private int triggeredEffects; // One bit per RoomEffect ordinal
+    private final long[] flags; // Items carried, fixtures opened and exits unlocked, laid out by the ItemTable
+    private volatile long lastUsed = System.currentTimeMillis(); // When the engine last did anything with it
+
+    /**
+     * Constructs a new GameSession that hasn't entered any room yet.  The engine moves it into the start room
+     * straight away.
+     *
+     * @param id        The ID of the session.
+     * @param roomCount The number of rooms in the house.
+     * @param flagCount The number of flags the house's {@link ItemTable} needs.
+     */
+    GameSession(long id, int roomCount, int flagCount) {
+        this.id = id;
+        this.visited = new long[wordsFor(roomCount)];
+        this.flags = new long[wordsFor(flagCount)];
+    }
+
+    /**
+     * Constructs a GameSession from saved state.
+     *
+     * @param id               The ID of the session.
+     * @param current          The state of the room the player is in.
+     * @param visited          The bits of the visited rooms, which the session takes ownership of.
+     * @param triggeredEffects The bits of the effects the player has seen.
+     * @param flags            The flag bits of the items and fixtures, which the session takes ownership of.
+     * @param lastUsed         When the session was last used, in milliseconds since the epoch.
+     */
+    GameSession(long id, RoomState current, long[] visited, int triggeredEffects, long[] flags, long lastUsed) {
+        this.id = id;
+        this.lastUsed = lastUsed;
+        this.current = current;
+        this.visited = visited;
+        this.triggeredEffects = triggeredEffects;
+        this.flags = flags;
+        for (long word : visited) {
+            visitedCount += Long.bitCount(word);
+        }
+    }
+
+    /**
+     * Gets the number of 64 bit words needed to hold one bit per room, or per flag.
+     *
+     * @param bitCount The number of rooms in the house, or of flags.
+     * @return The number of words.
+     */
+    public static int wordsFor(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    /**
+     * Gets the ID of the session.
+     *
+     * @return The session ID.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the state of the room the player is in.
+     *
+     * @return The current room state.
+     */
+    public RoomState getCurrent() {
+        return current;
+    }
+
+    /**
+     * Moves the player into another room.
+     *
+     * @param next The state of the room the player moved into.
+     */
+    void setCurrent(RoomState next) {
+        this.current = next;
+        visit(next);
+    }
+
+    /**
+     * Records that the player has been in a room and seen the effects that fired there.
+     *
+     * @param state The state of the room the player entered.
+     */
+    private void visit(RoomState state) {
+        int roomId = state.getRoom().getId();
+        long bit = 1L << roomId; // Shifts only use the low 6 bits of the room ID
+        if ((visited[roomId >>> 6] & bit) == 0) {
+            visited[roomId >>> 6] |= bit;
+            visitedCount++;
+        }
+        triggeredEffects |= state.getEffectBits();
+    }
+
+    /**
+     * Checks whether the player has been in a room.
+     *
+     * @param roomId The ID of the room.
+     * @return True if the player has visited the room.
+     */
+    public boolean hasVisited(int roomId) {
+        return (visited[roomId >>> 6] & (1L << roomId)) != 0;
+    }
+
+    /**
+     * Gets the number of different rooms the player has been in.
+     *
+     * @return The number of visited rooms.
+     */
+    public int getVisitedCount() {
+        return visitedCount;
+    }
+
+    /**
+     * Checks whether the player has seen an effect, such as the Kitchen lights flickering or the ghost.
+     *
+     * @param effect The effect to check.
+     * @return True if the effect has been triggered for this player.
+     */
+    public boolean hasTriggered(RoomEffect effect) {
+        return (triggeredEffects & (1 << effect.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the bits of the visited rooms, for saving the session.  The array must not be changed.
+     *
+     * @return The session's own array of visited room bits.
+     */
+    long[] getVisitedWords() {
+        return visited;
+    }
+
+    /**
+     * Gets the bits of the effects the player has seen, for saving the session.
+     *
+     * @return One bit per RoomEffect ordinal.
+     */
+    int getTriggeredEffects() {
+        return triggeredEffects;
+    }
+
+    /**
+     * Records that the session is being used now, so it isn't ended as idle.
+     */
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets when the session was last used.  This is wall-clock time, so it can be saved and still mean the same after
+     * a restart.
+     *
+     * @return The time of the last use, in milliseconds since the epoch.
+     */
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Checks one of the flags the {@link ItemTable} keeps in the session.
+     *
+     * @param bit The number of the flag.
+     * @return True if the flag is set.
+     */
+    boolean hasFlag(int bit) {
+        return (flags[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Sets one of the flags the {@link ItemTable} keeps in the session.
+     *
+     * @param bit The number of the flag.
+     */
+    void setFlag(int bit) {
+        flags[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * Gets the flag bits, for saving the session.  The array must not be changed.
+     *
+     * @return The session's own array of flag bits.
+     */
+    long[] getFlagWords() {
+        return flags;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+This is the HouseGenerator class for the Haunted House game.  It makes up haunted houses of any size, so the game
+and its data structures can be tried on houses much bigger than the one that ships with the game.
+*/
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * The HouseGenerator class lays a house out as floors of rooms in a grid.  Every room is a pure function of the seed
+ * and its ID: its name, description, image and exits are all worked out from a hash of the two, so rooms can be
+ * generated in any order, on any number of threads, and always come out the same for the same seed.
+ * <p>
+ * On each floor, every room has an exit north and south to the rooms next to it, and the first row of rooms is a
+ * corridor with exits east and west, so every room can be reached.  Other east and west exits are added at random.
+ * One stairway on each floor leads up to the next.  Every exit goes both ways, because both rooms work out the same
+ * answer for the wall between them.  Room 0 is always the Front Yard, so the game can start in a generated house
+ * just like in the real one.  Kitchens, washrooms, lofts and attics get {@link Trigger}s for their special effects.
+ */
+public class HouseGenerator {
+    public static final String START_ROOM = GameEngine.START_ROOM;
+
+    private static final int CHUNK_SIZE = 4096; // Rooms generated by one task when writing to files
+    private static final String IMAGE_DIR = "file:src/resources/image/";
+
+    // Kinds of room, each with the picture from the game's art set that shows it
+    private static final String[] TYPES = {"Attic", "Basement", "Dining Room", "Hall", "Guest Bedroom", "Kitchen",
+            "Library", "Master Bedroom", "Parlor", "Servant Bedroom", "Loft", "Washroom", "Wine Cellar"};
+    private static final String[] TYPE_IMAGES = {"Attic", "Basement", "DiningRoom", "FrontHall", "GuestBedroom",
+            "Kitchen", "LibraryRoom", "MasterBedroom", "Parlor", "ServantBedroom", "Upstairs", "Washroom",
+            "WineCellar"};
+    // The effects each kind of room sets off, shared by every room of that kind
+    private static final Trigger[] NO_TRIGGERS = new Trigger[0];
+    private static final Trigger[] KITCHEN_TRIGGERS = {new Trigger(RoomEffect.LIGHTS_FLICKER, null)};
+    private static final Trigger[] HAUNTED_TRIGGERS = {
+            new Trigger(RoomEffect.APPARITION, "GHOST", 0.5, false, null)};
+    private static final Trigger[] ATTIC_TRIGGERS = {
+            new Trigger(RoomEffect.APPARITION, "GHOST", 1.0, true, RoomEffect.LIGHTS_FLICKER)};
+
+    private static final String[] ADJECTIVES = {"Dusty", "Crumbling", "Silent", "Forgotten", "Flooded", "Moldy",
+            "Shadowy", "Frozen", "Creaking", "Abandoned", "Candlelit", "Boarded", "Whispering", "Cobwebbed", "Sunken",
+            "Hollow"};
+    private static final String[] FEATURES = {"thick with dust", "lit by a single guttering candle",
+            "colder than the rest of the house", "full of furniture draped in white sheets",
+            "stripped bare, with scratch marks on the floorboards", "filled with the smell of damp earth",
+            "strangely warm, as if someone just left", "crowded with broken mirrors"};
+    private static final String[] DETAILS = {"Something scratches behind the walls.",
+            "A portrait's eyes seem to follow you across the room.", "A child's laughter echoes from nowhere.",
+            "The door creaks shut behind you on its own.", "Footprints in the dust stop in the middle of the room.",
+            "A music box plays a few notes and falls silent.", "Your breath mists in the sudden cold.",
+            "A clock ticks somewhere, though there is no clock in sight."};
+
+    private final long seed;
+    private final int roomCount;
+    private final int roomsPerFloor;
+    private final int floorCount;
+    private final int width;
+
+    /**
+     * Constructs a new HouseGenerator.
+     *
+     * @param seed      The seed.  The same seed, room count and floors always make the same house.
+     * @param roomCount The number of rooms in the house.
+     * @param floors    The number of floors to spread the rooms over.  The last floor may be smaller than the rest,
+     *                  and very small houses may end up with fewer floors.
+     * @throws IllegalArgumentException If there are no rooms or floors.
+     */
+    public HouseGenerator(long seed, int roomCount, int floors) {
+        if (roomCount < 1 || floors < 1) {
+            throw new IllegalArgumentException("A house needs at least one room and one floor");
+        }
+        this.seed = seed;
+        this.roomCount = roomCount;
+        this.roomsPerFloor = (int) ((roomCount + (long) floors - 1) / floors);
+        this.floorCount = (roomCount + roomsPerFloor - 1) / roomsPerFloor;
+        this.width = (int) Math.ceil(Math.sqrt(roomsPerFloor));
+    }
+
+    /**
+     * Gets the number of rooms in the house.
+     *
+     * @return The number of rooms.
+     */
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    /**
+     * Gets the number of floors the house actually has.
+     *
+     * @return The number of floors.
+     */
+    public int getFloorCount() {
+        return floorCount;
+    }
+
+    /**
+     * Generates one room of the house.
+     *
+     * @param id The ID of the room, from 0 to one less than the number of rooms.
+     * @return The room.
+     */
+    public Room generate(int id) {
+        int floor = id / roomsPerFloor;
+        int position = id % roomsPerFloor;
+        int floorSize = floorSize(floor);
+
+        // Exits in the order up, down, north, east, south, west
+        String[] exits = new String[6];
+        int exitCount = 0;
+        if (floor + 1 < floorCount && position == stairwayOf(floor)) {
+            exits[exitCount++] = nameOf(id + roomsPerFloor);
+        }
+        if (floor > 0 && position == stairwayOf(floor - 1)) {
+            exits[exitCount++] = nameOf(id - roomsPerFloor);
+        }
+        int x = position % width;
+        int y = position / width;
+        if (y > 0) {
+            exits[exitCount++] = nameOf(id - width);
+        }
+        if (x < width - 1 && position + 1 < floorSize && hasEastExit(floor, position, y)) {
+            exits[exitCount++] = nameOf(id + 1);
+        }
+        if (position + width < floorSize) {
+            exits[exitCount++] = nameOf(id + width);
+        }
+        if (x > 0 && hasEastExit(floor, position - 1, y)) {
+            exits[exitCount++] = nameOf(id - 1);
+        }
+
+        String name = nameOf(id);
+        String image = IMAGE_DIR + imageOf(id) + ".png";
+        Room room = new Room(name, describe(id, floor, exitCount), image, Arrays.copyOf(exits, exitCount));
+        room.setTriggers(id == 0 || isStairway(floor, position) ? NO_TRIGGERS : triggersOf(typeOf(id)));
+        return room;
+    }
+
+    /**
+     * Gets the triggers of a kind of room: the lights flicker in kitchens, the ghost may appear in washrooms and
+     * lofts, and it waits in attics for players who have already seen the lights flicker.
+     */
+    private static Trigger[] triggersOf(int type) {
+        switch (TYPES[type]) {
+            case "Kitchen":
+                return KITCHEN_TRIGGERS;
+            case "Washroom":
+            case "Loft":
+                return HAUNTED_TRIGGERS;
+            case "Attic":
+                return ATTIC_TRIGGERS;
+            default:
+                return NO_TRIGGERS;
+        }
+    }
+
+    /**
+     * Generates every room of the house in parallel.  The whole house is kept in memory, so {@link #write} is
+     * better for very big houses.
+     *
+     * @return The rooms, in order of ID.
+     */
+    public List<Room> generateAll() {
+        Room[] rooms = new Room[roomCount];
+        IntStream.range(0, roomCount).parallel().forEach(id -> rooms[id] = generate(id));
+        return Arrays.asList(rooms);
+    }
+
+    /**
+     * Generates the house straight into a pair of room data files that {@link RoomDataReader} can read.  Rooms are
+     * generated in chunks on every core, but only a few chunks are held in memory at once, and they are written in
+     * order of ID.
+     *
+     * @param roomsFile        The JSON lines file to write the rooms to.
+     * @param descriptionsFile The file to write the room descriptions to.
+     * @throws IOException If the files can't be written.
+     */
+    public void write(Path roomsFile, Path descriptionsFile) throws IOException {
+        int chunks = (roomCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int window = 2 * Runtime.getRuntime().availableProcessors(); // Chunks generated ahead of the writer
+        ArrayDeque<CompletableFuture<Room[]>> pending = new ArrayDeque<>();
+        int nextChunk = 0;
+
+        try (RoomDataWriter writer = new RoomDataWriter(roomsFile, descriptionsFile)) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                while (nextChunk < chunks && pending.size() < window) {
+                    int start = nextChunk++ * CHUNK_SIZE;
+                    pending.add(CompletableFuture.supplyAsync(() -> generateRange(start)));
+                }
+                for (Room room : pending.remove().join()) {
+                    writer.write(room);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates one chunk of rooms.
+     *
+     * @param start The ID of the first room in the chunk.
+     * @return The rooms of the chunk.
+     */
+    private Room[] generateRange(int start) {
+        Room[] rooms = new Room[Math.min(CHUNK_SIZE, roomCount - start)];
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = generate(start + i);
+        }
+        return rooms;
+    }
+
+    /**
+     * Gets the name of a room.  Names are unique because they end with the room's floor and position.
+     *
+     * @param id The ID of the room.
+     * @return The room's name.
+     */
+    public String nameOf(int id) {
+        if (id == 0) return START_ROOM;
+
+        int floor = id / roomsPerFloor;
+        int position = id % roomsPerFloor;
+        String type = isStairway(floor, position) ? "Stairway" : TYPES[typeOf(id)];
+        return ADJECTIVES[(int) (hash(id, 1) >>> 60)] + " " + type + " " + floor + "-" + position;
+    }
+
+    /**
+     * Gets the name of the image file that shows a room, without its folder or extension.
+     */
+    private String imageOf(int id) {
+        if (id == 0) return "FrontYard";
+        return isStairway(id / roomsPerFloor, id % roomsPerFloor) ? "Stairway" : TYPE_IMAGES[typeOf(id)];
+    }
+
+    private int typeOf(int id) {
+        return (int) Long.remainderUnsigned(hash(id, 2), TYPES.length);
+    }
+
+    /**
+     * Makes up a room's description from its templates.
+     */
+    private String describe(int id, int floor, int exitCount) {
+        long bits = hash(id, 3);
+        StringBuilder description = new StringBuilder(200);
+        description.append('\t');
+        if (id == 0) {
+            description.append("You stand in the overgrown front yard of a house so large that its far wings ")
+                    .append("vanish into the fog.");
+        } else {
+            description.append("This room is ").append(FEATURES[(int) (bits & 7)]).append(". ");
+            description.append(DETAILS[(int) ((bits >>> 3) & 7)]);
+        }
+        description.append("\n\tYou are on floor ").append(floor + 1).append(" of ").append(floorCount)
+                .append(", and there ").append(exitCount == 1 ? "is 1 way" : "are " + exitCount + " ways")
+                .append(" out.");
+        return description.toString();
+    }
+
+    /**
+     * Gets the number of rooms on a floor.
+     */
+    private int floorSize(int floor) {
+        return Math.min(roomsPerFloor, roomCount - floor * roomsPerFloor);
+    }
+
+    /**
+     * Gets the position of the stairway that leads up from a floor.  It is placed so it also exists on the floor
+     * above, which may be smaller.
+     */
+    private int stairwayOf(int floor) {
+        return (int) Long.remainderUnsigned(hash(floor, 4), floorSize(floor + 1));
+    }
+
+    private boolean isStairway(int floor, int position) {
+        return (floor + 1 < floorCount && position == stairwayOf(floor))
+                || (floor > 0 && position == stairwayOf(floor - 1));
+    }
+
+    /**
+     * Checks whether there is a door between a room and the room east of it.  The first row is always a corridor.
+     */
+    private boolean hasEastExit(int floor, int position, int row) {
+        return row == 0 || (hash((long) floor * roomsPerFloor + position, 5) & 1) == 0;
+    }
+
+    /**
+     * Mixes the seed, a value and a salt into 64 random-looking bits, with the SplitMix64 finalizer.
+     *
+     * @param value The value, such as a room ID.
+     * @param salt  Tells apart the different things worked out from the same value.
+     * @return The hash.
+     */
+    private long hash(long value, int salt) {
+        long z = seed + value * 0x9E3779B97F4A7C15L + salt * 0xD1B54A32D192ED03L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The main method to generate a house into room data files.
+     *
+     * @param args Command-line arguments: the number of rooms, then optionally the number of floors (1 by default),
+     *             the seed (1 by default), and the folder to write rooms.jsonl and descriptions.txt to ("generated"
+     *             by default).
+     * @throws IOException If the files can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HouseGenerator rooms [floors] [seed] [outputDir]");
+            return;
+        }
+        int rooms = Integer.parseInt(args[0]);
+        int floors = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        Path dir = Path.of(args.length > 3 ? args[3] : "generated");
+        Files.createDirectories(dir);
+
+        HouseGenerator generator = new HouseGenerator(seed, rooms, floors);
+        long start = System.nanoTime();
+        generator.write(dir.resolve("rooms.jsonl"), dir.resolve("descriptions.txt"));
+        System.out.println("Generated " + rooms + " rooms on " + generator.getFloorCount() + " floors in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        System.out.println("Play it with -Dhaunted.roomsFile=" + dir.resolve("rooms.jsonl")
+                + " -Dhaunted.descriptionsFile=" + dir.resolve("descriptions.txt"));
+    }
+}
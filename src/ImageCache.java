@@ -0,0 +1,203 @@
+/*
+This is the ImageCache class for the Haunted House game.  It keeps decoded room images in memory so that moving
+between rooms does not have to decode a full size PNG on the JavaFX Application Thread, and it decodes the images
+for neighbouring rooms in the background before the player picks an exit.
+*/
+
+import javafx.scene.image.Image;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ImageCache class is a bounded, least-recently-used cache of decoded images keyed by their image path
+ * (for example {@link Room#getImagePath()}).  The size of every decoded image is estimated from its pixel
+ * dimensions, and the least recently used images are evicted once the configured byte budget is exceeded.
+ */
+public class ImageCache {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final long maxBytes;
+    private long currentBytes;
+
+    // Access ordered, so the first entry is always the least recently used image
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Image>> pending = new HashMap<>();
+    private final ExecutorService decoder;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong decodes = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    /**
+     * Constructs a new ImageCache with the given memory budget.
+     *
+     * @param maxBytes The maximum number of bytes of decoded pixel data to keep in the cache.
+     */
+    public ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.decoder = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "image-decoder");
+            thread.setDaemon(true); // Never keep the game running just to finish a preload
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the decoded image for the given path.  If the image is already cached, or a background decode of it
+     * has already started, this counts as a hit; otherwise the image is decoded on the calling thread.
+     *
+     * @param path The URL of the image, e.g. "file:src/resources/image/FrontYard.png".
+     * @return The decoded image.
+     */
+    public Image get(String path) {
+        CompletableFuture<Image> inFlight;
+        synchronized (this) {
+            Image image = images.get(path);
+            if (image != null) {
+                hits.incrementAndGet();
+                return image;
+            }
+            inFlight = pending.get(path);
+        }
+
+        if (inFlight != null) {
+            hits.incrementAndGet(); // The preload already did the work, at most we wait for it to finish
+            return inFlight.join();
+        }
+
+        misses.incrementAndGet();
+        return decodeAndStore(path);
+    }
+
+    /**
+     * Starts decoding the given images in the background, skipping any that are already cached or being decoded.
+     *
+     * @param paths The URLs of the images to preload.
+     */
+    public void preload(Collection<String> paths) {
+        for (String path : paths) {
+            synchronized (this) {
+                if (images.containsKey(path) || pending.containsKey(path)) {
+                    continue;
+                }
+                CompletableFuture<Image> future = CompletableFuture.supplyAsync(() -> decodeAndStore(path), decoder);
+                pending.put(path, future);
+            }
+        }
+    }
+
+    /**
+     * Decodes an image, records how long it took, and stores it in the cache.
+     *
+     * @param path The URL of the image to decode.
+     * @return The decoded image.
+     */
+    private Image decodeAndStore(String path) {
+        long startTime = System.nanoTime();
+        Image image = new Image(path);
+        decodeNanos.addAndGet(System.nanoTime() - startTime);
+        decodes.incrementAndGet();
+
+        synchronized (this) {
+            pending.remove(path);
+            if (!image.isError() && !images.containsKey(path)) {
+                images.put(path, image);
+                currentBytes += sizeOf(image);
+                evictToBudget(path);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Evicts the least recently used images until the cache fits in its budget.  The image that was just added is
+     * never evicted, so a single image bigger than the budget can still be displayed.
+     *
+     * @param keep The path of the image that must stay in the cache.
+     */
+    private void evictToBudget(String keep) {
+        Iterator<Map.Entry<String, Image>> iterator = images.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Image> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            currentBytes -= sizeOf(eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Estimates the memory used by a decoded image.
+     *
+     * @param image The decoded image.
+     * @return The approximate number of bytes of pixel data.
+     */
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Gets the number of requests that were served from the cache or from a background decode.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of requests that had to decode the image on the calling thread.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of images evicted to stay within the byte budget.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the average time spent decoding a single image, in milliseconds.
+     *
+     * @return The average decode time, or 0 if nothing has been decoded yet.
+     */
+    public double getAverageDecodeMillis() {
+        long count = decodes.get();
+        return count == 0 ? 0 : decodeNanos.get() / 1_000_000.0 / count;
+    }
+
+    /**
+     * Gets the number of bytes of decoded pixel data currently held by the cache.
+     *
+     * @return The current size of the cache in bytes.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImageCache[hits=%d, misses=%d, evictions=%d, decodes=%d, avgDecode=%.1fms, size=%d/%d bytes]",
+                getHits(), getMisses(), getEvictions(), decodes.get(), getAverageDecodeMillis(),
+                getCurrentBytes(), maxBytes);
+    }
+}
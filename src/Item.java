@@ -0,0 +1,71 @@
+/*
+This is the Item class for the Haunted House game.  It describes something the player can pick up and carry around
+the house, like a key or a journal.
+*/
+
+/**
+ * The Item class is an immutable thing lying in a room, or hidden inside a {@link Fixture}, that the player can
+ * take.  Items are listed in a room's {@code "items"} field in the rooms data file, or in a fixture's
+ * {@code "contains"} field:
+ * <pre>
+ * "items":[{"name":"Fire Poker","description":"An iron poker, bent at the tip."}]
+ * </pre>
+ * Item names must be unique in the house, since keys are named by the item that opens them.  Which player carries
+ * an item is not kept here but in each player's {@link GameSession}, by the item's ID.
+ */
+public final class Item {
+    private final String name;
+    private final String description;
+    private int id = -1;
+
+    /**
+     * Constructs a new Item.
+     *
+     * @param name        The name of the item.
+     * @param description What the player sees when they look at the item, or null.
+     * @throws IllegalArgumentException If the name is missing.
+     */
+    public Item(String name, String description) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("An item needs a name");
+        }
+        this.name = name;
+        this.description = description;
+    }
+
+    /**
+     * Gets the name of the item.
+     *
+     * @return The name of the item.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the description of the item.
+     *
+     * @return The description, or null if the item doesn't have one.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the integer ID the item was given by the {@link ItemTable} of its house.
+     *
+     * @return The ID of the item, or -1 if it hasn't been registered yet.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the integer ID of the item.  Only the {@link ItemTable} should call this.
+     *
+     * @param id The ID of the item.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+}
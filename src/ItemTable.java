@@ -0,0 +1,331 @@
+/*
+This is the ItemTable class for the Haunted House game.  It numbers every item, fixture and exit lock in the house
+when it is loaded, so each player's share of them can be kept as a few bits in their session.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ItemTable class holds every {@link Item}, {@link Fixture} and {@link ExitLock} of a house by integer ID, and
+ * the rules for taking, opening and using them.  The house itself never changes: what a player has done to it is a
+ * set of flags in their {@link GameSession}, laid out as
+ * <pre>
+ * bit 0 ...                       item carried, by item ID
+ * bit itemCount ...               fixture opened, by fixture ID
+ * bit itemCount + fixtureCount... exit unlocked, by lock ID
+ * </pre>
+ * so every player can take the same key without taking it from anyone else, and a session costs one bit per thing
+ * in the house.  Items can't be put down again, so an item that is carried is no longer in its room.
+ */
+public class ItemTable {
+    private static final int[] NO_IDS = new int[0];
+    private static final int NONE = -1;
+
+    private final Item[] items; // By item ID
+    private final String[] itemKeys; // Case-folded names, by item ID
+    private final int[] itemFixtures; // The fixture each item starts inside, or NONE if it lies in the room
+    private final Fixture[] fixtures; // By fixture ID
+    private final String[] fixtureKeys; // Case-folded names, by fixture ID
+    private final int[] fixtureKeyItems; // The item that unlocks each fixture, or NONE if it isn't locked
+    private final int[] lockKeyItems; // The item that unlocks each exit lock, by lock ID
+    private final int[][] roomItems; // By room ID, every item that starts in the room, in a fixture or not
+    private final int[][] roomFixtures; // By room ID
+    private final int[][] exitLocks; // By room ID then exit index, the lock ID or NONE; null for rooms without locks
+    private final int fixtureBase;
+    private final int lockBase;
+    private final int flagCount;
+
+    /**
+     * Constructs a new ItemTable from the items, fixtures and locks of every room in a house.
+     *
+     * @param registry The registry holding every room of the house.
+     * @throws IllegalArgumentException If two items have the same name, a key isn't an item in the house, or a lock
+     *                                  is on an exit the room doesn't have.
+     */
+    public ItemTable(RoomRegistry registry) {
+        int roomCount = registry.size();
+        roomItems = new int[roomCount][];
+        roomFixtures = new int[roomCount][];
+        exitLocks = new int[roomCount][];
+
+        // Number everything in the house, room by room
+        List<Item> itemList = new ArrayList<>();
+        List<Integer> itemFixtureList = new ArrayList<>();
+        List<Fixture> fixtureList = new ArrayList<>();
+        int lockCount = 0;
+        for (int roomId = 0; roomId < roomCount; roomId++) {
+            Room room = registry.findById(roomId);
+            int first = itemList.size();
+            for (Item item : room.getItems()) {
+                itemList.add(item);
+                itemFixtureList.add(NONE);
+            }
+            Fixture[] roomFixtureArray = room.getFixtures();
+            roomFixtures[roomId] = roomFixtureArray.length == 0 ? NO_IDS : new int[roomFixtureArray.length];
+            for (int i = 0; i < roomFixtureArray.length; i++) {
+                Fixture fixture = roomFixtureArray[i];
+                fixture.setId(fixtureList.size());
+                roomFixtures[roomId][i] = fixture.getId();
+                fixtureList.add(fixture);
+                for (Item item : fixture.getContents()) {
+                    itemList.add(item);
+                    itemFixtureList.add(fixture.getId());
+                }
+            }
+            roomItems[roomId] = idRange(first, itemList.size());
+            lockCount += room.getLocks().length;
+        }
+
+        items = itemList.toArray(new Item[0]);
+        itemKeys = new String[items.length];
+        itemFixtures = new int[items.length];
+        Map<String, Integer> itemIds = new HashMap<>();
+        for (int id = 0; id < items.length; id++) {
+            items[id].setId(id);
+            itemKeys[id] = RoomRegistry.keyOf(items[id].getName());
+            itemFixtures[id] = itemFixtureList.get(id);
+            if (itemIds.put(itemKeys[id], id) != null) {
+                throw new IllegalArgumentException("There is more than one item called " + items[id].getName());
+            }
+        }
+
+        fixtures = fixtureList.toArray(new Fixture[0]);
+        fixtureKeys = new String[fixtures.length];
+        fixtureKeyItems = new int[fixtures.length];
+        for (int id = 0; id < fixtures.length; id++) {
+            fixtureKeys[id] = RoomRegistry.keyOf(fixtures[id].getName());
+            fixtureKeyItems[id] = fixtures[id].getKey() == null ? NONE
+                    : keyItem(itemIds, fixtures[id].getKey(), fixtures[id].getName());
+        }
+
+        // Locks are numbered in the same room order, and found by exit index when a player moves
+        lockKeyItems = new int[lockCount];
+        int lockId = 0;
+        for (int roomId = 0; roomId < roomCount; roomId++) {
+            Room room = registry.findById(roomId);
+            if (room.getLocks().length == 0) continue;
+            String[] exits = room.getExits();
+            exitLocks[roomId] = new int[exits.length];
+            Arrays.fill(exitLocks[roomId], NONE);
+            for (ExitLock lock : room.getLocks()) {
+                int exitIndex = exitIndexOf(exits, lock.getExit());
+                if (exitIndex < 0) {
+                    throw new IllegalArgumentException(room.getName() + " has a lock on " + lock.getExit()
+                            + ", which isn't one of its exits");
+                }
+                lockKeyItems[lockId] = keyItem(itemIds, lock.getKey(), room.getName() + " to " + lock.getExit());
+                exitLocks[roomId][exitIndex] = lockId++;
+            }
+        }
+
+        fixtureBase = items.length;
+        lockBase = fixtureBase + fixtures.length;
+        flagCount = lockBase + lockCount;
+    }
+
+    private static int[] idRange(int from, int to) {
+        if (from == to) return NO_IDS;
+        int[] ids = new int[to - from];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = from + i;
+        }
+        return ids;
+    }
+
+    private static int keyItem(Map<String, Integer> itemIds, String keyName, String lockedName) {
+        Integer id = itemIds.get(RoomRegistry.keyOf(keyName));
+        if (id == null) {
+            throw new IllegalArgumentException("The key to " + lockedName + ", " + keyName
+                    + ", isn't an item in the house");
+        }
+        return id;
+    }
+
+    private static int exitIndexOf(String[] exits, String exitName) {
+        for (int i = 0; i < exits.length; i++) {
+            if (exits[i].equalsIgnoreCase(exitName)) return i;
+        }
+        return NONE;
+    }
+
+    /**
+     * Gets the number of flags every session needs to hold its share of the house.
+     *
+     * @return The number of items, fixtures and exit locks together.
+     */
+    public int getFlagCount() {
+        return flagCount;
+    }
+
+    /**
+     * Gets the number of items in the house.
+     *
+     * @return The number of items.
+     */
+    public int getItemCount() {
+        return items.length;
+    }
+
+    /**
+     * Takes an item lying in the player's room, or in an open fixture there.
+     *
+     * @param session  The player's session.
+     * @param itemName The name of the item, ignoring case.
+     * @return {@link ActionResult#TAKEN}, or {@link ActionResult#NOT_HERE} if the item can't be seen in the room.
+     */
+    ActionResult take(GameSession session, String itemName) {
+        String key = RoomRegistry.keyOf(itemName);
+        for (int id : roomItems[roomOf(session)]) {
+            if (itemKeys[id].equals(key) && isVisible(session, id)) {
+                session.setFlag(id);
+                return ActionResult.TAKEN;
+            }
+        }
+        return ActionResult.NOT_HERE;
+    }
+
+    /**
+     * Opens a fixture in the player's room.
+     *
+     * @param session     The player's session.
+     * @param fixtureName The name of the fixture, ignoring case.
+     * @param opened      Receives the fixture if it opened, or null.
+     * @return {@link ActionResult#OPENED}, or why the fixture didn't open.
+     */
+    ActionResult open(GameSession session, String fixtureName, List<Fixture> opened) {
+        String key = RoomRegistry.keyOf(fixtureName);
+        for (int id : roomFixtures[roomOf(session)]) {
+            if (fixtureKeys[id].equals(key)) {
+                if (session.hasFlag(fixtureBase + id)) return ActionResult.ALREADY_OPEN;
+                if (fixtureKeyItems[id] != NONE) return ActionResult.LOCKED;
+                session.setFlag(fixtureBase + id);
+                if (opened != null) {
+                    opened.add(fixtures[id]);
+                }
+                return ActionResult.OPENED;
+            }
+        }
+        return ActionResult.NOT_HERE;
+    }
+
+    /**
+     * Uses a carried item on everything in the player's room it unlocks: locked fixtures are opened and locked
+     * exits unlocked.
+     *
+     * @param session  The player's session.
+     * @param itemName The name of the item, ignoring case.
+     * @param opened   Receives the fixtures the item opened, so the player can be shown them, or null.
+     * @return {@link ActionResult#UNLOCKED} if anything gave way, {@link ActionResult#NOTHING_HAPPENS} if the item
+     *         doesn't open anything here, or {@link ActionResult#NOT_CARRIED}.
+     */
+    ActionResult use(GameSession session, String itemName, List<Fixture> opened) {
+        String key = RoomRegistry.keyOf(itemName);
+        int itemId = NONE;
+        for (int id = 0; id < items.length; id++) {
+            if (itemKeys[id].equals(key) && session.hasFlag(id)) {
+                itemId = id;
+                break;
+            }
+        }
+        if (itemId == NONE) return ActionResult.NOT_CARRIED;
+
+        boolean unlocked = false;
+        int roomId = roomOf(session);
+        for (int id : roomFixtures[roomId]) {
+            if (fixtureKeyItems[id] == itemId && !session.hasFlag(fixtureBase + id)) {
+                session.setFlag(fixtureBase + id);
+                unlocked = true;
+                if (opened != null) {
+                    opened.add(fixtures[id]);
+                }
+            }
+        }
+        int[] locks = exitLocks[roomId];
+        if (locks != null) {
+            for (int lockId : locks) {
+                if (lockId != NONE && lockKeyItems[lockId] == itemId && !session.hasFlag(lockBase + lockId)) {
+                    session.setFlag(lockBase + lockId);
+                    unlocked = true;
+                }
+            }
+        }
+        return unlocked ? ActionResult.UNLOCKED : ActionResult.NOTHING_HAPPENS;
+    }
+
+    /**
+     * Checks whether one of a room's exits is still locked for a player.
+     *
+     * @param session   The player's session.
+     * @param roomId    The ID of the room.
+     * @param exitIndex The index of the exit in {@link Room#getExits()}.
+     * @return True if the exit has a lock the player hasn't unlocked.
+     */
+    public boolean isLocked(GameSession session, int roomId, int exitIndex) {
+        int[] locks = exitLocks[roomId];
+        if (locks == null || exitIndex < 0 || exitIndex >= locks.length || locks[exitIndex] == NONE) return false;
+        return !session.hasFlag(lockBase + locks[exitIndex]);
+    }
+
+    /**
+     * Gets the items a player can see in their room: the ones they haven't taken, lying in the room or in a fixture
+     * they opened.
+     *
+     * @param session The player's session.
+     * @return The visible items, in the order the room lists them.
+     */
+    public Item[] itemsHere(GameSession session) {
+        List<Item> here = new ArrayList<>();
+        for (int id : roomItems[roomOf(session)]) {
+            if (isVisible(session, id)) {
+                here.add(items[id]);
+            }
+        }
+        return here.toArray(new Item[0]);
+    }
+
+    /**
+     * Gets the fixtures in a player's room that they haven't opened yet.
+     *
+     * @param session The player's session.
+     * @return The closed fixtures, in the order the room lists them.
+     */
+    public Fixture[] closedFixturesHere(GameSession session) {
+        List<Fixture> closed = new ArrayList<>();
+        for (int id : roomFixtures[roomOf(session)]) {
+            if (!session.hasFlag(fixtureBase + id)) {
+                closed.add(fixtures[id]);
+            }
+        }
+        return closed.toArray(new Fixture[0]);
+    }
+
+    /**
+     * Gets the items a player carries.
+     *
+     * @param session The player's session.
+     * @return The carried items, by item ID.
+     */
+    public Item[] inventory(GameSession session) {
+        List<Item> carried = new ArrayList<>();
+        for (int id = 0; id < items.length; id++) {
+            if (session.hasFlag(id)) {
+                carried.add(items[id]);
+            }
+        }
+        return carried.toArray(new Item[0]);
+    }
+
+    private boolean isVisible(GameSession session, int itemId) {
+        if (session.hasFlag(itemId)) return false; // Carried
+        int fixture = itemFixtures[itemId];
+        return fixture == NONE || session.hasFlag(fixtureBase + fixture);
+    }
+
+    private static int roomOf(GameSession session) {
+        return session.getCurrent().getRoom().getId();
+    }
+}
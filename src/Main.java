@@ -7,41 +7,77 @@ The program is a game that uses Open JavaFX and simulates exploring a haunted ho
  */
 
 
-import javafx.animation.FadeTransition;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
-import javafx.scene.control.TextArea;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * The Main class serves as the entry point for the haunted house game. It initializes the GUI elements using JavaFX
  * and provides methods for handling user interaction, updating the game state, and displaying different rooms.
  */
 public class Main extends Application {
+    private static final long LOCAL_SESSION = 0; // The JavaFX window only ever has one player
+    private static final long LAUNCH_NANOS = System.nanoTime();
+    private static final Duration ROOM_FADE = Duration.seconds(1);
+    private static final EffectScheduler.Shape ROOM_FADE_IN = new EffectScheduler.Shape(EffectScheduler.Priority.HIGH,
+            0.0, 1.0, ROOM_FADE, Duration.ZERO, Duration.ZERO, 1, true);
+    private static final EffectScheduler.Shape LIGHTS_FLICKER = new EffectScheduler.Shape(EffectScheduler.Priority.LOW,
+            1.0, 0.2, Duration.seconds(0.1), Duration.ZERO, Duration.seconds(0.1), 2, false);
+    private static final String DEFAULT_SAVE_DIR = "saves/local";
+    static final String EXIT_SELECTOR_ID = "exits"; // Lets the simulation runner find the exit selector
+
     //Initial declaration of some variables.
     private BorderPane borderPane;
     private Pane gameWindow;
-    private TextArea textAreaStory;
+    private StoryView story;
     private ComboBox<String> exitsComboBox;
+    private final ExitListModel exitList = new ExitListModel();
+    private ComboBox<String> actionsComboBox;
+    private ComboBox<String> languageComboBox;
+    private final List<String> locales = new ArrayList<>(); // The locale tag of each entry in the language selector
+    private final List<Runnable> actions = new ArrayList<>(); // What each entry of the actions selector does
     private ImageView backgroundView;
-
-    private List<Room> rooms;
+    private int backgroundTarget; // The background's target number in the effect scheduler
+
+    private GameEngine engine;
+    private ImageCache imageCache;
+    private TextureAtlas atlas;
+    private EffectScheduler effects;
+    private ApparitionPool apparitions;
+    private AudioManager audio;
+    private TransitionMetrics metrics;
+    private FramePulseMonitor pulseMonitor;
+    private Path metricsFile;
+    private SessionStore sessionStore;
+    private ContentPacks contentPacks;
+    private final Map<RoomEffect, Consumer<Trigger>> effectHandlers = new EnumMap<>(RoomEffect.class);
 
 
     /**
@@ -52,16 +88,21 @@ public class Main extends Application {
      */
     @Override
     public void start(Stage primaryStage) {
-        try {
-            String audioPath = getClass().getResource("/resources/media/Music.mp3").toExternalForm();
-            Media backgroundMusic = new Media(audioPath);
-            MediaPlayer mediaPlayer = new MediaPlayer(backgroundMusic);
-            mediaPlayer.setCycleCount(MediaPlayer.INDEFINITE); // Loop the audio continuously
-            mediaPlayer.play();
-        } catch (Exception e) {
-            e.printStackTrace(); // Prints the exception if there is an issue with the media file
-        }
-
+        // Decoded room images are cached so room changes don't decode PNGs on the JavaFX Application Thread
+        imageCache = new ImageCache(Long.getLong("haunted.imageCacheBytes", 64L * 1024 * 1024));
+
+        // The house, the saved game and the atlas load in the background while the window is built and shown
+        CompletableFuture<GameLoader> loading = new GameLoader(imageCache,
+                Path.of(System.getProperty("haunted.saveDir", DEFAULT_SAVE_DIR)), LOCAL_SESSION,
+                System.getProperty("haunted.locale", ContentPacks.BASE_LOCALE),
+                Boolean.getBoolean("haunted.newGame")).load();
+
+        // Every room change is timed, and the numbers are published over JMX and dumped to a CSV file
+        metrics = new TransitionMetrics();
+        CompletableFuture.runAsync(metrics::registerMBean); // Starting JMX is slow, and nothing waits for it
+        metricsFile = Path.of(System.getProperty("haunted.metricsFile", "haunted-metrics.csv"));
+        metrics.startCsvDump(metricsFile, Long.getLong("haunted.metricsIntervalSeconds", 60));
+        pulseMonitor = new FramePulseMonitor(metrics);
 
         // Initialize UI Components
         borderPane = new BorderPane();
@@ -72,30 +113,45 @@ public class Main extends Application {
         backgroundView = new ImageView(); //ImageView for room graphic display
         gameWindow.getChildren().add(backgroundView);
 
+        //Every fade and flicker runs off one timer, and low priority effects give way when frames run late
+        effects = new EffectScheduler(Integer.getInteger("haunted.effectPool", 8),
+                Double.parseDouble(System.getProperty("haunted.frameBudgetMillis", "25")));
+        backgroundTarget = effects.addTarget(backgroundView, 1.0, false);
+
+        //How each kind of effect is played when a room's trigger fires
+        effectHandlers.put(RoomEffect.NONE, trigger -> { });
+        effectHandlers.put(RoomEffect.LIGHTS_FLICKER, trigger -> animateLightsFlicker());
+        effectHandlers.put(RoomEffect.APPARITION, this::showApparition);
+        effectHandlers.put(RoomEffect.SOUND, trigger -> audio.playSound(trigger.getArgument()));
 
-        //TextArea for describing each room
-        textAreaStory = new TextArea();
-        textAreaStory.setWrapText(true);
-        textAreaStory.setEditable(false);
-        textAreaStory.setPrefHeight(130);
-        textAreaStory.setStyle("-fx-control-inner-background: black; -fx-text-fill: yellow;");
 
-        ScrollPane scrollPane = new ScrollPane(textAreaStory);
-        scrollPane.setFitToWidth(false);
-        scrollPane.setFitToHeight(false);
-        scrollPane.setStyle("-fx-background: black;");
+        //Story text for each room, shown at once unless the typewriter is turned on, with the last rooms kept to
+        //scroll back to
+        story = new StoryView(Integer.getInteger("haunted.storyHistory", 200),
+                Double.parseDouble(System.getProperty("haunted.typewriterCps", "0")));
+        story.getNode().setPrefSize(480, 130);
 
 
-        //ComboBox for exits
-        exitsComboBox = new ComboBox<>();
+        //ComboBox for exits, whose list is only changed where the exits differ from the last room
+        exitsComboBox = new ComboBox<>(exitList.getItems());
+        exitsComboBox.setId(EXIT_SELECTOR_ID);
         exitsComboBox.setVisibleRowCount(3);
+        exitsComboBox.setDisable(true); //Until the house has loaded
+        exitsComboBox.setPromptText("Loading...");
         exitsComboBox.setPrefWidth(200);
+        exitsComboBox.addEventFilter(KeyEvent.KEY_PRESSED, this::filterExits); //Typing narrows the exits down
         exitsComboBox.setOnAction(e -> {
-            String selectedExit = exitsComboBox.getValue();
-            Room nextRoom = findRoomByName(selectedExit);
+            int selectedExit = exitList.exitIndexOf(exitsComboBox.getSelectionModel().getSelectedIndex());
+            if (engine == null || selectedExit < 0) return;
+            long lookupStart = System.nanoTime();
+            RoomState nextRoom = engine.move(LOCAL_SESSION, selectedExit);
+            metrics.record(TransitionMetrics.Phase.ROOM_LOOKUP, lookupStart);
             if (nextRoom != null) {
                 updateRoom(nextRoom);  //Method call for different rooms depending on selection
-            }                          //The method also controls what ends up currently in the combobox
+                                       //The method also controls what ends up currently in the combobox
+            } else if (engine.isLocked(LOCAL_SESSION, selectedExit)) {
+                story.showMessage("The way to the " + exitsComboBox.getValue() + " is locked.");
+            }
         });
 
         Label exitsLabel = new Label("EXITS", exitsComboBox);
@@ -103,10 +159,46 @@ public class Main extends Application {
         exitsLabel.setContentDisplay(ContentDisplay.BOTTOM);
         HBox.setMargin(exitsLabel, new Insets(-70, 0, 0, 20));
 
+        //ComboBox for the things the player can do in the room, like taking an item or opening a chest
+        actionsComboBox = new ComboBox<>();
+        actionsComboBox.setVisibleRowCount(4);
+        actionsComboBox.setDisable(true);
+        actionsComboBox.setPrefWidth(200);
+        actionsComboBox.setOnAction(e -> {
+            int selectedAction = actionsComboBox.getSelectionModel().getSelectedIndex();
+            if (selectedAction >= 0 && selectedAction < actions.size()) {
+                actions.get(selectedAction).run();
+            }
+        });
+
+        Label actionsLabel = new Label("ACTIONS", actionsComboBox);
+        actionsLabel.setStyle("-fx-text-fill: white; -fx-font-size: 20px;");
+        actionsLabel.setContentDisplay(ContentDisplay.BOTTOM);
+        HBox.setMargin(actionsLabel, new Insets(-70, 0, 0, 20));
+
+        //ComboBox for the language of the story, which can be changed at any time
+        languageComboBox = new ComboBox<>();
+        languageComboBox.setVisibleRowCount(4);
+        languageComboBox.setDisable(true);
+        languageComboBox.setPrefWidth(140);
+        languageComboBox.setOnAction(e -> {
+            int selectedLanguage = languageComboBox.getSelectionModel().getSelectedIndex();
+            if (selectedLanguage >= 0 && selectedLanguage < locales.size()) {
+                changeLanguage(locales.get(selectedLanguage));
+            }
+        });
+
+        Label languageLabel = new Label("LANGUAGE", languageComboBox);
+        languageLabel.setStyle("-fx-text-fill: white; -fx-font-size: 20px;");
+        languageLabel.setContentDisplay(ContentDisplay.BOTTOM);
+        HBox.setMargin(languageLabel, new Insets(-70, 0, 0, 20));
+
         HBox optionsTab = new HBox();  //HBox that sits at bottom of the screen with all the interactive elements
         optionsTab.setAlignment(Pos.CENTER);
-        optionsTab.getChildren().add(scrollPane);
+        optionsTab.getChildren().add(story.getNode());
         optionsTab.getChildren().add(exitsLabel);
+        optionsTab.getChildren().add(actionsLabel);
+        optionsTab.getChildren().add(languageLabel);
 
         borderPane.setTop(gameWindow);
         borderPane.setBottom(optionsTab);
@@ -118,364 +210,341 @@ public class Main extends Application {
         primaryStage.setScene(scene);
         primaryStage.setResizable(false);
         primaryStage.show();
+        onNextFrame(() -> System.out.println("Time to first frame: " + millisSinceLaunch() + " ms"));
 
-        // Initialize Rooms
-        initializeRooms();  //Method call that initializes all rooms.
-        updateRoom(findRoomByName("Front Yard"));  //Method for controlling the graphics and exits
+        // Show the first room as soon as the loader is done
+        loading.whenComplete((loader, error) -> Platform.runLater(() -> finishLoading(loader, error)));
     }
 
     /**
-     * Searches for a specific room by its name in the rooms ArrayList.
+     * Starts the game once the house has loaded: sets up what needed the house or the atlas, shows the first room,
+     * and lets the player choose exits.
      *
-     * @param roomName The name of the room to find.
-     * @return The Room object if found, otherwise null.
+     * @param loader The loader, with everything it loaded, or null if loading failed.
+     * @param error  Why loading failed, or null.
      */
-    private Room findRoomByName(String roomName) {
-        for (Room room : rooms) {
-            if (room.getName().equalsIgnoreCase(roomName)) {
-                return room;
-            }
+    private void finishLoading(GameLoader loader, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            cause.printStackTrace(); // Prints the exception if there is an issue with the room data files
+            exitsComboBox.setPromptText(null);
+            story.showMessage("The house couldn't be loaded.");
+            return;
         }
-        return null;
+        engine = loader.getEngine();
+        sessionStore = loader.getSessionStore();
+        atlas = loader.getAtlas(); //Empty if not built
+        contentPacks = loader.getContentPacks();
+        apparitions = new ApparitionPool(gameWindow, imageCache, atlas, effects, 2); //Reusable ghost overlays
+
+        // Audio loads in the background too
+        URL music = getClass().getResource("/resources/media/Music.mp3");
+        audio = new AudioManager(music == null ? null : music.toExternalForm(), engine, LAUNCH_NANOS);
+
+        updateRoom(loader.getFirstRoom());  //Method for controlling the graphics and exits
+        exitsComboBox.setDisable(false);
+        actionsComboBox.setDisable(false);
+        fillLanguages();
+        onNextFrame(() -> {
+            System.out.println("Time to interactive: " + millisSinceLaunch() + " ms");
+            System.out.println(loader);
+            if (Boolean.getBoolean("haunted.exitWhenInteractive")) {
+                Platform.exit(); // A training run for the class data sharing archive ends here
+            }
+        });
     }
 
     /**
      * Updates the game window to display the specified room's description and image, and updates the exits.
+     * The game engine has already decided which of the room's triggers fired, and each one is played by the handler
+     * for its effect.
      *
-     * @param room The room to be displayed.
+     * @param state The state of the room to be displayed.
      */
-    private void updateRoom(Room room) {
-        if (room == null) return;
+    private void updateRoom(RoomState state) {
+        if (state == null) return;
+        Room room = state.getRoom();
+        long transitionStart = System.nanoTime();
+        long time = transitionStart;  //Each phase of the room change is timed back to back
 
-        // Update the text area with the room's description
-        textAreaStory.setText(room.getDescription());
+        // Start writing the room's description into the story
+        story.showRoom(contentPacks.nameOf(room), contentPacks.describe(room));
+        time = metrics.record(TransitionMetrics.Phase.TEXT_UPDATE, time);
 
         // Update the image in the game window
-        Image roomImage = new Image(room.getImagePath());
-        backgroundView.setImage(roomImage);
+        atlas.apply(backgroundView, room.getImagePath(), imageCache);
+        time = metrics.record(TransitionMetrics.Phase.IMAGE_LOAD, time);
 
-        // Create a fade transition for the room image
-        FadeTransition fadeTransition = new FadeTransition(Duration.seconds(1), backgroundView);
-        fadeTransition.setFromValue(0.0);
-        fadeTransition.setToValue(1.0);
-        fadeTransition.play();
+        // Fade the room image in, underneath any effect still running on it
+        effects.play(backgroundTarget, ROOM_FADE_IN);
+        pulseMonitor.watch(ROOM_FADE);  //Watch for dropped frames while the room fades in
+        time = metrics.record(TransitionMetrics.Phase.TRANSITION_START, time);
 
         // Update the exits in the combo box
-        exitsComboBox.getItems().clear();
-        exitsComboBox.getItems().addAll(room.getExits());
         exitsComboBox.setValue(null); // Clear any existing selection
+        exitList.setExits(exitLabels(room));
+        exitsComboBox.setPromptText(null);
+        time = metrics.record(TransitionMetrics.Phase.EXIT_LIST, time);
 
-        if (room.getName().equalsIgnoreCase("Kitchen")) {
-            animateLightsFlicker(); // Specific animation for the Kitchen
+        updateActions();
+        preloadExitImages(room);
+        audio.enterRoom(room); // Crossfades if this room has a different ambient track
+
+        for (Trigger trigger : state.getFired()) {
+            effectHandlers.get(trigger.getEffect()).accept(trigger); // Only the triggers that fired in this room
         }
-        else if (room.getName().equalsIgnoreCase("Washroom") ||
-                 room.getName().equalsIgnoreCase("Upstairs Loft")
-                ){
-            showGhost(); // Call the ghost method
+        metrics.record(TransitionMetrics.Phase.EFFECTS, time);
+        metrics.record(TransitionMetrics.Phase.TOTAL, transitionStart);
+    }
+
+    /**
+     * Gets the names of a room's exits in the active language, in the room's order.
+     *
+     * @param room The room.
+     * @return The exit labels.  An exit that doesn't lead to a known room keeps its name from the room data.
+     */
+    private String[] exitLabels(Room room) {
+        Room[] exitRooms = room.getExitRooms();
+        String[] labels = room.getExits().clone();
+        for (int i = 0; i < labels.length; i++) {
+            if (exitRooms[i] != null) {
+                labels[i] = contentPacks.nameOf(exitRooms[i]);
+            }
         }
+        return labels;
     }
 
     /**
-     * Animates the lights flickering in the kitchen using a fade transition.
+     * Fills the language selector with English and every language a content pack has been built for, each named in
+     * its own language, and selects the active one.
      */
-    private void animateLightsFlicker() {
-        FadeTransition lightsFlicker = new FadeTransition(Duration.seconds(0.1), backgroundView);
-        lightsFlicker.setFromValue(1.0);
-        lightsFlicker.setToValue(0.2);
-        lightsFlicker.setCycleCount(4); // Flicker five times
-        lightsFlicker.setAutoReverse(true);
-        lightsFlicker.play();
+    private void fillLanguages() {
+        locales.clear();
+        locales.addAll(contentPacks.getLocales());
+        List<String> labels = new ArrayList<>();
+        for (String tag : locales) {
+            Locale locale = Locale.forLanguageTag(tag);
+            String name = locale.getDisplayName(locale);
+            labels.add(name.isEmpty() ? tag : name.substring(0, 1).toUpperCase(locale) + name.substring(1));
+        }
+        languageComboBox.getItems().setAll(labels);
+        languageComboBox.getSelectionModel().select(locales.indexOf(contentPacks.getActiveLocale()));
+        languageComboBox.setDisable(locales.size() < 2);
     }
 
     /**
-     * Shows a ghost animation by fading in and out an image of a ghost.
+     * Changes the language of the story without restarting.  The pack is read in the background, and once it is
+     * loaded it replaces the last one and the player's room is shown again in the new language.
+     *
+     * @param locale The locale tag of the new language.
      */
-    private void showGhost() {
-        // Load the ghost image
-        Image ghostImage = new Image("file:src/resources/image/Ghost.png");
-        ImageView ghostView = new ImageView(ghostImage);
-        ghostView.setOpacity(0.0); // Start fully transparent
+    private void changeLanguage(String locale) {
+        if (locale.equals(contentPacks.getActiveLocale())) return;
+        languageComboBox.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return contentPacks.load(locale);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((pack, error) -> Platform.runLater(() -> {
+            languageComboBox.setDisable(false);
+            if (error != null) {
+                System.err.println("Couldn't load the " + locale + " content pack: " + error.getCause().getMessage());
+                languageComboBox.getSelectionModel().select(locales.indexOf(contentPacks.getActiveLocale()));
+                return;
+            }
+            contentPacks.setActive(pack);
+            RoomState current = engine.look(LOCAL_SESSION);
+            if (current != null) {
+                Room room = current.getRoom();
+                story.showRoom(contentPacks.nameOf(room), contentPacks.describe(room));
+                exitsComboBox.setValue(null);
+                exitList.setExits(exitLabels(room));
+            }
+        }));
+    }
 
-        // Position the ghost in the room
-        ghostView.setLayoutX(500);
-        ghostView.setLayoutY(300);
+    /**
+     * Fills the actions selector with what the player can do in their room: take the items they can see, open the
+     * fixtures they haven't opened, and use the items they carry.
+     */
+    private void updateActions() {
+        List<String> labels = new ArrayList<>();
+        actions.clear();
+        for (Item item : engine.getItemsHere(LOCAL_SESSION)) {
+            addAction(labels, "Take " + item.getName(), item.getName(), () -> detailsOf(item.getDescription()),
+                    () -> engine.take(LOCAL_SESSION, item.getName()));
+        }
+        for (Fixture fixture : engine.getClosedFixturesHere(LOCAL_SESSION)) {
+            addAction(labels, "Open " + fixture.getName(), fixture.getName(),
+                    () -> detailsOf(fixture.getDescription()), () -> engine.open(LOCAL_SESSION, fixture.getName()));
+        }
+        for (Item item : engine.getInventory(LOCAL_SESSION)) {
+            List<Fixture> opened = new ArrayList<>(); // Filled in by the action, for its details
+            addAction(labels, "Use " + item.getName(), item.getName(), () -> detailsOf(opened),
+                    () -> engine.use(LOCAL_SESSION, item.getName(), opened));
+        }
 
-        // Add the ghost to the game window
-        gameWindow.getChildren().add(ghostView);
+        actionsComboBox.setValue(null);
+        actionsComboBox.getItems().setAll(labels);
+        actionsComboBox.setPromptText(labels.isEmpty() ? "Nothing to do" : null);
+    }
 
-        // Create a fade-in transition for the ghost
-        FadeTransition fadeIn = new FadeTransition(Duration.seconds(2), ghostView);
-        fadeIn.setFromValue(0.0); // Start at fully transparent
-        fadeIn.setToValue(0.6);   // Fade to semi-transparent
+    /**
+     * Adds one entry to the actions selector.  Choosing it tells the player what happened, and then the actions are
+     * filled in again, since taking or opening something changes what can be done next.
+     *
+     * @param labels The labels of the actions selector being filled in.
+     * @param label  The label of the new entry.
+     * @param name   The name of the item or fixture the action is on.
+     * @param details More to tell the player if the action works, like the description of an item or of the
+     *                fixtures a key opened, asked for after the action.
+     * @param action  Asks the game engine to do the action.
+     */
+    private void addAction(List<String> labels, String label, String name, Supplier<List<String>> details,
+                           Supplier<ActionResult> action) {
+        labels.add(label);
+        actions.add(() -> {
+            ActionResult result = action.get();
+            story.showMessage(result.describe(name));
+            if (result.isSuccess()) {
+                for (String detail : details.get()) {
+                    story.showMessage(detail);
+                }
+            }
+            updateActions();
+        });
+    }
 
-        // Create a fade-out transition for the ghost
-        FadeTransition fadeOut = new FadeTransition(Duration.seconds(2), ghostView);
-        fadeOut.setFromValue(0.6); // Start at semi-transparent
-        fadeOut.setToValue(0.0);   // Fade to fully transparent
+    private static List<String> detailsOf(String description) {
+        return description == null ? List.of() : List.of(description);
+    }
 
-        // Set a delay for the fade-out to give the appearance some time
-        fadeOut.setDelay(Duration.seconds(2));
+    /**
+     * Gets what the player finds in the fixtures a key opened.
+     */
+    private static List<String> detailsOf(List<Fixture> opened) {
+        List<String> details = new ArrayList<>();
+        for (Fixture fixture : opened) {
+            details.addAll(detailsOf(fixture.getDescription()));
+        }
+        return details;
+    }
 
-        // After fade-in completes, play fade-out
-        fadeIn.setOnFinished(e -> fadeOut.play());
+    /**
+     * Narrows the exits down to the ones starting with what the player types into the exit selector.  Backspace
+     * takes the last letter off the filter and Escape clears it.
+     *
+     * @param event The key press.
+     */
+    private void filterExits(KeyEvent event) {
+        String filter = exitList.getFilter();
+        if (event.getCode() == KeyCode.BACK_SPACE && !filter.isEmpty()) {
+            filter = filter.substring(0, filter.length() - 1);
+        } else if (event.getCode() == KeyCode.ESCAPE && !filter.isEmpty()) {
+            filter = "";
+        } else if (event.getText().length() == 1 && !Character.isISOControl(event.getText().charAt(0))
+                && !event.isShortcutDown()) {
+            filter += event.getText();
+        } else {
+            return; // Arrow keys, Enter and the rest work as usual
+        }
+        event.consume();
 
-        // After fade-out completes, remove the ghost from the scene
-        fadeOut.setOnFinished(e -> gameWindow.getChildren().remove(ghostView));
+        exitsComboBox.setValue(null);
+        exitList.setFilter(filter);
+        exitsComboBox.setPromptText(filter.isEmpty() ? null : "Filter: " + filter);
+        if (!filter.isEmpty() && !exitsComboBox.isShowing()) {
+            exitsComboBox.show();
+        }
+    }
 
-        // Start the fade-in transition
-        fadeIn.play();
+    /**
+     * Runs an action once the next frame has been drawn.  Animation timers run on every pulse, so the first time
+     * this one runs, everything changed before it was started is on screen.
+     *
+     * @param action What to run.
+     */
+    private static void onNextFrame(Runnable action) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                action.run();
+            }
+        }.start();
+    }
+
+    private static long millisSinceLaunch() {
+        return (System.nanoTime() - LAUNCH_NANOS) / 1_000_000;
+    }
+
+    /**
+     * Starts decoding the images of every room reachable from the given room in the background, so the next room
+     * change is served from the image cache.
+     *
+     * @param room The room the player is currently in.
+     */
+    private void preloadExitImages(Room room) {
+        List<String> imagePaths = new ArrayList<>();
+        for (Room nextRoom : room.getExitRooms()) {
+            if (nextRoom != null) {
+                imagePaths.add(atlas.sourceOf(nextRoom.getImagePath()));
+            }
+        }
+        imageCache.preload(imagePaths);
     }
 
+    /**
+     * Fades the apparition named by a trigger in and out over the room, the ghost if the trigger doesn't name one.
+     *
+     * @param trigger The trigger that fired.
+     */
+    private void showApparition(Trigger trigger) {
+        String typeName = trigger.getArgument();
+        try {
+            apparitions.show(typeName == null ? ApparitionType.GHOST : ApparitionType.valueOf(typeName));
+        } catch (IllegalArgumentException e) {
+            System.err.println("There is no apparition called " + typeName);
+        }
+    }
 
+    /**
+     * Animates the lights flickering, as in the kitchen, by dimming the room image twice.  The flicker is a low
+     * priority effect, so it is left out if the frames are running late.
+     */
+    private void animateLightsFlicker() {
+        effects.play(backgroundTarget, LIGHTS_FLICKER);
+    }
 
     /**
-     * Initializes the rooms in the game by creating Room objects and adding them to the list.
+     * The stop method is called when the application exits.  It stops the audio, compacts the saved game, writes
+     * the last transition metrics, and reports how well the image cache performed.
      */
-    private void initializeRooms() {
-        rooms = new ArrayList<>();
-        rooms.add(new Room(
-                "Front Yard",
-                "\tWhat a night... you've crashed your car in the middle of nowhere.  Whatever selfish " +
-                        "reason you had to travel so late at night to visit your family across the state, seems " +
-                        "silly now.  \"I should've waited until the morning,\" you say to yourself, as a bitter " +
-                        "cold sets in.  After waiting for someone to pass by on the road for several hours, no " +
-                        "help arrives, and the whole time there is no service for your phone, not even GPS.  " +
-                        "Shivering, you begin to walk out of desperation, and after a long time you see a faint " +
-                        "light down a very unkempt road that departs from the highway.  \n\t The cold begins to " +
-                        "become unbearable, and your shivering is becoming violent as it shakes your whole body. "+
-                        "Soon, you see a very old looking house, with many lights on, although you can see no one in " +
-                        "any of them.  You rush to the door, nearly collapsing from the cold.  Momentarily you pause, " +
-                        "as a very deep feeling of unease fills your mind.  Knocking at the door brings no answer, " +
-                        "and you decide to enter the home, so that you will not die of hypothermia outside it, waiting. " +
-                        "The door is unlocked.",
-
-                "file:src/resources/image/FrontYard.png",
-                new String[]{"Front Hall"}
-        ));
-        rooms.add(new Room(
-                "Parlor",
-                "\tYou stand in the parlor - a quaint room, albeit somewhat dusty and filled with cobwebs.  A " +
-                        "grand piano rests in the center of the room, and a lit candle eerily rests on it, " +
-                        "steadily burning.   Marks on the floor indicate there used to be much more furniture in " +
-                        "this room.   As you gaze again at the piano your mind wanders, almost against your will, " +
-                        "and you can picture a dark figure playing a somber song on the keys.  It takes several " +
-                        "moments while lost in the imaginary music to regain control of your senses.  Feeling " +
-                        "disturbed, you have a strong desire to return to the Front Hall through the door behind " +
-                        "you.",
-
-                "file:src/resources/image/Parlor.png",
-                new String[]{"Front Hall"}
-        ));
-
-        rooms.add(new Room(
-                "Front Hall",
-                "\tYou stand in the Front Hall of the house.  Calling out does nothing and no human presence " +
-                "arrives to the room.   The door you entered this place with has somehow locked itself, " +
-                "and no force you muster can open it.   The memory of the bitter cold stays with you. " +
-                "Now in relative warmth a new feeling has replaced what should be relief.   Something " +
-                "is very wrong here, and you can feel it.   Many lights are on but there is silence, a " +
-                "suffocating silence that you can almost feel in your throat.  \n\tThe room itself is quite " +
-                "beautiful,  a grand staircase goes to the upper floor, a chandelier hangs from the " +
-                "ceiling.  A door on the left goes to a parlor, and a door behind you goes to what seems " +
-                "to be a dining room.   Two paintings hang here on the walls, one of a sad looking young " +
-                "woman, and the other of a woman who seems to be in severe distress.  Her hair is shorn, " +
-                "and her clothing is gray.  Your steps seem like thunder on the floor as you walk around. " +
-                "Something unseen seems to be watching you, no matter how hard you try to brush away that "+
-                "thought.",
-
-                "file:src/resources/image/FrontHall.png",
-                new String[]{"Parlor", "Upstairs Loft", "Dining Room"}
-        ));
-
-        rooms.add(new Room(
-                "Dining Room",
-                "\tYou stand in a dining room, where it seems the spiders have spun a tapestry of cobwebs.  " +
-                        "Curiously, although the webs are plentiful, none of them seem to have any living " +
-                        "residents, although there are plenty of dead ones.  Eerily, like most rooms in this place, " +
-                        "the lights are on, and dinnerware is still present on the table, as if whomever last dined " +
-                        "here had to leave in a hurry.   Some plates even have desiccated pieces of food on them.  " +
-                        "\n\tTwo clocks hang on the walls, ticking, displaying times that don't match, and both seem to be " +
-                        "stuck, despite their sound.  One clock is set in a gold picture frame, the other in an " +
-                        "ornate wooden housing.   The dining chairs have all been pushed back, away from the table.  " +
-                        "Behind you a doorway leads back to the front hall, and another in the corner leads to a " +
-                        "kitchen.  Strangely your own name comes to your mind, very distinctly, as if someone had " +
-                        "spoken it in your ear, but without sound. ",
-
-                "file:src/resources/image/DiningRoom.png",
-                new String[]{"Front Hall", "Kitchen"}
-        ));
-
-        rooms.add(new Room(
-                "Kitchen",
-                "\tAs you enter the kitchen a bright flash of light envelops the room, through the windows," +
-                        "where out of the corner of your eye you catch a glimpse of a ray of lightning strike not " +
-                        "very far from the house.   Strangely, no sound or familiar thunderclap accompanies it.  " +
-                        "After the alarming surprise of the blast of light, you begin to notice the contents of the " +
-                        "room.   \n\tImmediately a very musky odor assaults your senses coming from the sink.   This " +
-                        "room seems to be a little more modern than other parts of the house, with newer-looking " +
-                        "appliances, albeit in very poor condition.   The refrigerator in particular, on closer " +
-                        "inspection, has strange markings on it, that almost cause pain to look at.   A gaping hole " +
-                        "punctures its door.   Behind you, a doorway goes back to the dining room, " +
-                        "and you notice a narrow door in the other corner of the room, with some tight stairs " +
-                        "leading down into a basement.",
-
-                "file:src/resources/image/Kitchen.png",
-                new String[]{"Dining Room", "Basement"}
-        ));
-
-        rooms.add(new Room(
-                "Basement",
-                "\tDescending down some rickety stairs leads you to a basement.  The room seems more " +
-                        "cheerful than others, with colorful drawings pasted on the walls, and craft materials " +
-                        "stored in various containers.   A small furnace with a low flame is burning, most likely " +
-                        "providing the weak heat of the house that saved your life.  Taking a closer look at the " +
-                        "drawings reveals the work of a child, and they are quite charming—except for one on the " +
-                        "right wall that reminds you of a skull or some grim, ghostly face.  At the back of the " +
-                        "room behind some shelves, you notice a very old looking door, which you believe leads to a " +
-                        "wine cellar.   In that dark part of the room it seems some effort was made to keep this " +
-                        "particular door from casual view. ",
-
-                "file:src/resources/image/Basement.png",
-                new String[]{"Kitchen", "Wine Cellar"}
-        ));
-
-        rooms.add(new Room(
-                "Wine Cellar",
-                "\tAs you enter the wine cellar the first thing you notice is the sheer amount of dust, more " +
-                        "so than other areas of the house.   It feels as if you are the first to enter this room " +
-                        "in a very, very long time.   Within moments an almost audible scream fills your mind, " +
-                        "although it doesn't seem human.  And before you can panic, your mind fixates unwillingly " +
-                        "on a space of the floor, as if whatever invisible thing present here wants you to see what " +
-                        "had happened there.   Shaken, you regain control, wishing you hadn't entered this room.  " +
-                        "As you look around you notice the casks, and many full bottles of wine, some of which " +
-                        "seem from very old years.  However, the experience of whatever evil fills this place " +
-                        "makes it hard to concentrate and your only desire is to return to the other basement " +
-                        "room.",
-
-                "file:src/resources/image/WineCellar.png",
-                new String[]{"Basement"}
-        ));
-
-        rooms.add(new Room(
-                "Upstairs Loft",
-                "\tAs you enter the upstairs loft you stop dead in your tracks as a very visible shape of a " +
-                        "human-like figure appears momentarily.   It looks at you with cold white eyes, and its body " +
-                        "is shrouded in flowing shadow.   After the initial shock of actually seeing the specter " +
-                        "your heart begins to thump loudly in your chest.   After some time you calm down and " +
-                        "survey the room, which features most noticeably, several paintings that seem to glare at " +
-                        "you with dark sockets.  Two burning candles sit side-by-side on a table, and cobwebs and " +
-                        "dust seem to cover almost every surface in the room.   Looking to the back of the room you " +
-                        "see two hallways, one leads to master bedroom, and the other leads to two other rooms, " +
-                        "which look to be a guest bedroom and some servant's quarters. ",
-
-                "file:src/resources/image/Upstairs.png",
-                new String[]{"Front Hall", "Master Bedroom", "Guest Bedroom", "Servant's Room"}
-        ));
-
-        rooms.add(new Room(
-                "Master Bedroom",
-                "\tYou enter the master bedroom and are surprised at its poor condition, even after seeing " +
-                        "other areas of this house.  The bedsheets of the large bed are tattered and torn, and in " +
-                        "the corner the fabric of a draped area looks to be torn to shreds.  The walls have great " +
-                        "patches of decay all over them, and torn pieces of wallpaper hang from the ceiling.  " +
-                        "Walking in the room is treacherous due to missing floorboards.  Disturbingly, two skulls " +
-                        "casually rest on twin dressers with mirrors.   They look real, and placed intentionally.  " +
-                        "You have no desire to look closer to see if they are actually authentic.   Behind you a " +
-                        "door leads back to the upstairs loft, and another door leads to a small bathroom.  To your " +
-                        "right, a doorway leads to a den or study area.",
-
-                "file:src/resources/image/MasterBedroom.png",
-                new String[]{"Upstairs Loft", "Washroom", "Study"}
-        ));
-
-        rooms.add(new Room(
-                "Washroom",
-                "\tAs you enter the small bathroom, to your great dismay, the apparition you saw in the " +
-                        "loft appears again for a few moments.  You can feel anger emanating from it.   It seems " +
-                        "especially displeased at your presence in this room in particular.   After it disappears, " +
-                        "you notice a foul black liquid in a bathtub that has also spilled onto the floor. " +
-                        "The stench is nauseating and you are surprised you could not smell it from the bedroom.  " +
-                        "You can hear faint whispering echoing off of the tile and you notice glyphs and " +
-                        "drawings on the walls.   The whispers seem to ooze from them.  Patches of black mold have " +
-                        "grown in many places on the wall.   The specter seems to still be in the room, although " +
-                        "not visible, and you feel that everything it wants at this moment is for you to leave.",
-
-                "file:src/resources/image/Washroom.png",
-                new String[]{"Master Bedroom"}
-        ));
-
-        rooms.add(new Room(
-                "Study",
-                "\tA you enter the study room, you notice how well-kept it looks.  Quite the difference from " +
-                        "the bedroom.  Bookcases adorn the room and at the center stands a desk, with an open journal " +
-                        "resting on it, the pages are all blank, although you can see the imprints as if something " +
-                        "had written on the pages, yet not transferred any ink.  A candle rests on the desk as if " +
-                        "someone had been recently here.  Many other books are on the shelves and are scattered about, and  " +
-                        "perusing them reveals them all to be in neither a language or alphabet you can recognize.  Some " +
-                        "pictures on the wall seem to be vintage anatomical sketches of a human face and an old photograph of a " +
-                        "cadaver likely from an archeological site.  A globe of the Earth sits in spinning display " +
-                        "but the country borders seem to be from a much older time period.",
-
-                "file:src/resources/image/LibraryRoom.png",
-                new String[]{"Master Bedroom"}
-        ));
-
-        rooms.add(new Room(
-                "Guest Bedroom",
-                "\tThe guest bedroom is dimly lit and in disarray.  It seems as if someone had rummaged " +
-                        "through the chest of drawers hastily looking for something.  Some dried mud covers parts " +
-                        "of the floor.  A small lone rocking chair sits in the middle of the room, and seems to " +
-                        "sway when you are not directly looking at it.  Above the chair hangs a strange wire " +
-                        "sculpture in the form of a wine-glass.  In the back of the room you see a door at the " +
-                        "depths of a small closet, it looks like there is a stairway leading up behind it. ",
-
-                "file:src/resources/image/GuestBedroom.png",
-                new String[]{"Upstairs Loft", "Stairway"}
-        ));
-
-        rooms.add(new Room(
-                "Stairway",
-                "\tAs you enter the narrow stairway you see that it leads to an attic.  At the top of the " +
-                        "stairs there seems to be a figure standing there, but it disappears from view when you try " +
-                        "to focus on it.  Very bright moonlight comes from the doorway.  The stairs themselves " +
-                        "seem old and precarious, you make a mental note to be careful if you decide to climb " +
-                        "them.",
-
-                "file:src/resources/image/Stairway.png",
-                new String[]{"Guest Bedroom", "Attic"}
-        ));
-
-        rooms.add(new Room(
-                "Attic",
-                "\tThe ceiling is low in the attic and it is difficult to move around.  The most distinct " +
-                        "part of this room is the window, which at first looked as if the moon impossibly filled " +
-                        "it completely, but looking closer reveals it to be a very detailed frosted glass window " +
-                        "with the surface of the moon on it.   It seems to glow with more light than physically " +
-                        "possible for the real moon to provide behind it.  Several wooden chests and boxes contain " +
-                        "old items like bottles and empty boxes of vintage detergent.   One chest in the center of " +
-                        "the room is so heavy it can't be lifted at all, and is locked so tight you doubt you " +
-                        "could open it without a tool.",
-
-                "file:src/resources/image/Attic.png",
-                new String[]{"Stairway"}
-        ));
-
-        rooms.add(new Room(
-                "Servant's Room",
-                "\tThe servant’s quarters appear bare and poorly furnished.  Huge cobwebs cover some of the " +
-                        "corners of the room.   A small lit lamp sits on a nightstand, and you wonder how long it " +
-                        "has been turned on.  The room seems very drab compared to other places in the house, and " +
-                        "not much catches your interest until you see some grotesque totems pinned on the walls in " +
-                        "the corner of the room.   As you inspect them you hear a faint knocking coming from the " +
-                        "inside of a large armoire in the corner of the room.   Reluctantly you open it, finding " +
-                        "it empty besides some dusty, poorly-folded bed linens, and the knocking stops.  You " +
-                        "decide not to look at the totems any further.",
-
-                "file:src/resources/image/ServantBedroom.png",
-                new String[]{"Upstairs Loft"}
-        ));
-
-        // Add more rooms as needed...
+    @Override
+    public void stop() {
+        if (audio != null) {
+            audio.shutdown();
+        }
+        if (sessionStore != null) {
+            try {
+                engine.compactSessions();
+                sessionStore.close();
+            } catch (IOException e) {
+                System.err.println("Couldn't save the game: " + e.getMessage());
+            }
+        }
+        if (metrics != null) {
+            metrics.stopCsvDump(metricsFile);
+        }
+        if (imageCache != null) {
+            System.out.println(imageCache);
+        }
+        if (effects != null) {
+            System.out.println(effects);
+        }
     }
 
     /**
@@ -11,10 +11,25 @@ an image path for the graphic, and a String array with possible exits.
  * and available exits to other rooms.
  */
 public class Room {
+    private static final Trigger[] NO_TRIGGERS = new Trigger[0];
+    private static final Item[] NO_ITEMS = new Item[0];
+    private static final Fixture[] NO_FIXTURES = new Fixture[0];
+    private static final ExitLock[] NO_LOCKS = new ExitLock[0];
+
     private String name;
     private String description;
+    private DescriptionStore descriptionStore;
+    private long descriptionOffset;
+    private int descriptionLength;
     private String imagePath;
     private String[] exits;
+    private String ambientPath;
+    private Trigger[] triggers = NO_TRIGGERS;
+    private Item[] items = NO_ITEMS;
+    private Fixture[] fixtures = NO_FIXTURES;
+    private ExitLock[] locks = NO_LOCKS;
+    private int id = -1;
+    private Room[] exitRooms;
 
     /**
      * Constructs a new Room with the specified name, description, image path, and exits.
@@ -31,6 +46,26 @@ public class Room {
         this.exits = exits;
     }
 
+    /**
+     * Constructs a new Room whose description is only read from the description file when it is needed.
+     *
+     * @param name              The name of the room.
+     * @param descriptionStore  The store holding the text of the description.
+     * @param descriptionOffset The byte offset of the description in the store.
+     * @param descriptionLength The length of the description in bytes.
+     * @param imagePath         The file path to the room's image.
+     * @param exits             An array of strings representing the exits to other rooms.
+     */
+    public Room(String name, DescriptionStore descriptionStore, long descriptionOffset, int descriptionLength,
+                String imagePath, String[] exits) {
+        this.name = name;
+        this.descriptionStore = descriptionStore;
+        this.descriptionOffset = descriptionOffset;
+        this.descriptionLength = descriptionLength;
+        this.imagePath = imagePath;
+        this.exits = exits;
+    }
+
     /**
      * Gets the name of the room.
      *
@@ -41,11 +76,15 @@ public class Room {
     }
 
     /**
-     * Gets the description of the room.
+     * Gets the description of the room.  Descriptions loaded from a data file are read from the file every time,
+     * so they don't stay on the heap.
      *
      * @return The description of the room.
      */
     public String getDescription() {
+        if (description == null && descriptionStore != null) {
+            return descriptionStore.read(descriptionOffset, descriptionLength);
+        }
         return description;
     }
 
@@ -66,4 +105,131 @@ public class Room {
     public String[] getExits() {
         return exits;
     }
+
+    /**
+     * Gets the URL of the ambient track that plays in this room.
+     *
+     * @return The URL of the room's ambient track, or null if the room uses the game's background music.
+     */
+    public String getAmbientPath() {
+        return ambientPath;
+    }
+
+    /**
+     * Sets the URL of the ambient track that plays in this room.
+     *
+     * @param ambientPath The URL of the ambient track, or null to use the game's background music.
+     */
+    void setAmbientPath(String ambientPath) {
+        this.ambientPath = ambientPath;
+    }
+
+    /**
+     * Gets the triggers that can set off special effects when a player enters the room.
+     *
+     * @return The room's triggers, which is empty if the room has none.
+     */
+    public Trigger[] getTriggers() {
+        return triggers;
+    }
+
+    /**
+     * Sets the room's triggers.  This is done when the room is read from the rooms data file or generated.
+     *
+     * @param triggers The room's triggers, or null for none.
+     */
+    void setTriggers(Trigger[] triggers) {
+        this.triggers = triggers == null ? NO_TRIGGERS : triggers;
+    }
+
+    /**
+     * Gets the items lying in the room when the game starts, not counting the ones inside its fixtures.
+     *
+     * @return The room's items, which is empty if the room has none.
+     */
+    public Item[] getItems() {
+        return items;
+    }
+
+    /**
+     * Sets the items lying in the room.  This is done when the room is read from the rooms data file.
+     *
+     * @param items The room's items, or null for none.
+     */
+    void setItems(Item[] items) {
+        this.items = items == null ? NO_ITEMS : items;
+    }
+
+    /**
+     * Gets the things in the room that can be opened.
+     *
+     * @return The room's fixtures, which is empty if the room has none.
+     */
+    public Fixture[] getFixtures() {
+        return fixtures;
+    }
+
+    /**
+     * Sets the things in the room that can be opened.  This is done when the room is read from the rooms data file.
+     *
+     * @param fixtures The room's fixtures, or null for none.
+     */
+    void setFixtures(Fixture[] fixtures) {
+        this.fixtures = fixtures == null ? NO_FIXTURES : fixtures;
+    }
+
+    /**
+     * Gets the locks on the room's exits.
+     *
+     * @return The room's exit locks, which is empty if every exit is open.
+     */
+    public ExitLock[] getLocks() {
+        return locks;
+    }
+
+    /**
+     * Sets the locks on the room's exits.  This is done when the room is read from the rooms data file.
+     *
+     * @param locks The room's exit locks, or null for none.
+     */
+    void setLocks(ExitLock[] locks) {
+        this.locks = locks == null ? NO_LOCKS : locks;
+    }
+
+    /**
+     * Gets the integer ID the room was given by the {@link RoomRegistry} it belongs to.
+     *
+     * @return The ID of the room, or -1 if it hasn't been registered yet.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the integer ID of the room.  Only the {@link RoomRegistry} should call this.
+     *
+     * @param id The ID of the room.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the rooms the exits lead to, in the same order as {@link #getExits()}.  An entry is null if no room
+     * with that exit's name exists.
+     *
+     * @return An array of the rooms behind each exit, or null if the exits haven't been resolved yet.
+     */
+    public Room[] getExitRooms() {
+        return exitRooms;
+    }
+
+    /**
+     * Sets the rooms the exits lead to.  Only the {@link RoomRegistry} should call this.
+     *
+     * @param exitRooms An array of the rooms behind each exit, in the same order as the exit names.
+     */
+    void setExitRooms(Room[] exitRooms) {
+        this.exitRooms = exitRooms;
+    }
 }
@@ -0,0 +1,185 @@
+/*
+This is the RoomDataReader class for the Haunted House game.  It streams the room definitions out of the rooms data
+file one line at a time, so the house no longer has to be hard-coded in Java.
+*/
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RoomDataReader class reads rooms from a JSON lines file, where every line describes one room:
+ * <pre>
+ * {"name":"Attic","image":"file:src/resources/image/Attic.png","exits":["Stairway"],"descriptionOffset":0,"descriptionLength":512}
+ * </pre>
+ * A room can also name its own ambient track with an optional {@code "ambient"} field holding the track's URL,
+ * and list the special effects it sets off in an optional {@code "triggers"} field, as described in {@link Trigger}.
+ * The things in the room are listed in the optional {@code "items"}, {@code "fixtures"} and {@code "locks"} fields,
+ * as described in {@link Item}, {@link Fixture} and {@link ExitLock}.
+ * Only the name, image path, exits and ambient track are read into memory.  The description stays in the
+ * description file and is read through the {@link DescriptionStore} when the room is shown.
+ */
+public class RoomDataReader implements Closeable {
+    private final BufferedReader reader;
+    private final DescriptionStore descriptionStore;
+    private final Path roomsFile;
+    private int lineNumber;
+
+    /**
+     * Constructs a new RoomDataReader.
+     *
+     * @param roomsFile        The JSON lines file with one room per line.
+     * @param descriptionStore The store that holds the room descriptions.
+     * @throws IOException If the rooms file can't be opened.
+     */
+    public RoomDataReader(Path roomsFile, DescriptionStore descriptionStore) throws IOException {
+        this.roomsFile = roomsFile;
+        this.reader = Files.newBufferedReader(roomsFile, StandardCharsets.UTF_8);
+        this.descriptionStore = descriptionStore;
+    }
+
+    /**
+     * Reads the next room from the file.  Blank lines are skipped.
+     *
+     * @return The next room, or null when there are no rooms left.
+     * @throws IOException If the file can't be read or a line is not a valid room.
+     */
+    public Room next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) return null;
+        } while (line.isBlank());
+
+        try {
+            return toRoom(JsonLine.parseObject(line));
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new IOException(roomsFile + " line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Turns the fields of one line into a Room.
+     *
+     * @param fields The parsed fields of the line.
+     * @return The room described by the fields.
+     */
+    private Room toRoom(Map<String, Object> fields) {
+        String name = (String) require(fields, "name");
+        String imagePath = (String) require(fields, "image");
+        List<?> exitList = (List<?>) require(fields, "exits");
+        String[] exits = new String[exitList.size()];
+        for (int i = 0; i < exits.length; i++) {
+            exits[i] = (String) exitList.get(i);
+        }
+        long descriptionOffset = (Long) require(fields, "descriptionOffset");
+        int descriptionLength = Math.toIntExact((Long) require(fields, "descriptionLength"));
+
+        Room room = new Room(name, descriptionStore, descriptionOffset, descriptionLength, imagePath, exits);
+        room.setAmbientPath((String) fields.get("ambient"));
+        List<?> triggerList = (List<?>) fields.get("triggers");
+        if (triggerList != null) {
+            Trigger[] triggers = new Trigger[triggerList.size()];
+            for (int i = 0; i < triggers.length; i++) {
+                triggers[i] = toTrigger((Map<?, ?>) triggerList.get(i));
+            }
+            room.setTriggers(triggers);
+        }
+        room.setItems(toItems((List<?>) fields.get("items")));
+        List<?> fixtureList = (List<?>) fields.get("fixtures");
+        if (fixtureList != null) {
+            Fixture[] fixtures = new Fixture[fixtureList.size()];
+            for (int i = 0; i < fixtures.length; i++) {
+                Map<?, ?> fixture = (Map<?, ?>) fixtureList.get(i);
+                fixtures[i] = new Fixture((String) fixture.get("name"), (String) fixture.get("description"),
+                        (String) fixture.get("key"), toItems((List<?>) fixture.get("contains")));
+            }
+            room.setFixtures(fixtures);
+        }
+        List<?> lockList = (List<?>) fields.get("locks");
+        if (lockList != null) {
+            ExitLock[] locks = new ExitLock[lockList.size()];
+            for (int i = 0; i < locks.length; i++) {
+                Map<?, ?> lock = (Map<?, ?>) lockList.get(i);
+                locks[i] = new ExitLock((String) lock.get("exit"), (String) lock.get("key"));
+            }
+            room.setLocks(locks);
+        }
+        return room;
+    }
+
+    /**
+     * Turns a list of item objects into Items.
+     *
+     * @param itemList The parsed item objects, or null.
+     * @return The items, or null if there is no list.
+     */
+    private static Item[] toItems(List<?> itemList) {
+        if (itemList == null) return null;
+        Item[] items = new Item[itemList.size()];
+        for (int i = 0; i < items.length; i++) {
+            Map<?, ?> item = (Map<?, ?>) itemList.get(i);
+            items[i] = new Item((String) item.get("name"), (String) item.get("description"));
+        }
+        return items;
+    }
+
+    /**
+     * Turns the fields of one trigger object into a Trigger.
+     *
+     * @param fields The parsed fields of the trigger.
+     * @return The trigger described by the fields.
+     */
+    private static Trigger toTrigger(Map<?, ?> fields) {
+        Object effect = fields.get("effect");
+        if (effect == null) {
+            throw new IllegalArgumentException("Missing field \"effect\" in a trigger");
+        }
+        Object chance = fields.get("chance");
+        Object requires = fields.get("requires");
+        return new Trigger(RoomEffect.valueOf((String) effect), (String) fields.get("argument"),
+                chance == null ? 1.0 : ((Number) chance).doubleValue(),
+                Boolean.TRUE.equals(fields.get("firstVisitOnly")),
+                requires == null ? null : RoomEffect.valueOf((String) requires));
+    }
+
+    private static Object require(Map<String, Object> fields, String key) {
+        Object value = fields.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field \"" + key + "\"");
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads every room of a house.
+     *
+     * @param roomsFile        The JSON lines file with one room per line.
+     * @param descriptionsFile The UTF-8 file holding the room descriptions.
+     * @return A list of all of the rooms in the file.
+     * @throws IOException If either file can't be read.
+     */
+    public static List<Room> readAll(Path roomsFile, Path descriptionsFile) throws IOException {
+        DescriptionStore descriptionStore = new DescriptionStore(descriptionsFile);
+        List<Room> rooms = new ArrayList<>();
+        try (RoomDataReader reader = new RoomDataReader(roomsFile, descriptionStore)) {
+            Room room;
+            while ((room = reader.next()) != null) {
+                rooms.add(room);
+            }
+        }
+        return rooms;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+This is the RoomDataWriter class for the Haunted House game.  It writes rooms in the format read by RoomDataReader,
+one room at a time, so houses of any size can be written without keeping them in memory.
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The RoomDataWriter class appends rooms to a rooms file and their descriptions to a description file, keeping
+ * track of the byte offset of every description.
+ */
+public class RoomDataWriter implements Closeable {
+    private final BufferedWriter roomsWriter;
+    private final OutputStream descriptionsOutput;
+    private long descriptionOffset;
+
+    /**
+     * Constructs a new RoomDataWriter, replacing any existing files.
+     *
+     * @param roomsFile        The JSON lines file to write the rooms to.
+     * @param descriptionsFile The file to write the room descriptions to.
+     * @throws IOException If either file can't be created.
+     */
+    public RoomDataWriter(Path roomsFile, Path descriptionsFile) throws IOException {
+        this.roomsWriter = Files.newBufferedWriter(roomsFile, StandardCharsets.UTF_8);
+        this.descriptionsOutput = new BufferedOutputStream(Files.newOutputStream(descriptionsFile), 1 << 16);
+    }
+
+    /**
+     * Writes one room.
+     *
+     * @param room The room to write.
+     * @throws IOException If the room can't be written.
+     */
+    public void write(Room room) throws IOException {
+        byte[] description = room.getDescription().getBytes(StandardCharsets.UTF_8);
+        descriptionsOutput.write(description);
+
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"name\":");
+        JsonLine.appendString(line, room.getName());
+        line.append(",\"image\":");
+        JsonLine.appendString(line, room.getImagePath());
+        line.append(",\"exits\":[");
+        String[] exits = room.getExits();
+        for (int i = 0; i < exits.length; i++) {
+            if (i > 0) line.append(',');
+            JsonLine.appendString(line, exits[i]);
+        }
+        line.append(']');
+        if (room.getAmbientPath() != null) {
+            line.append(",\"ambient\":");
+            JsonLine.appendString(line, room.getAmbientPath());
+        }
+        Trigger[] triggers = room.getTriggers();
+        if (triggers.length > 0) {
+            line.append(",\"triggers\":[");
+            for (int i = 0; i < triggers.length; i++) {
+                if (i > 0) line.append(',');
+                appendTrigger(line, triggers[i]);
+            }
+            line.append(']');
+        }
+        if (room.getItems().length > 0) {
+            line.append(",\"items\":");
+            appendItems(line, room.getItems());
+        }
+        Fixture[] fixtures = room.getFixtures();
+        if (fixtures.length > 0) {
+            line.append(",\"fixtures\":[");
+            for (int i = 0; i < fixtures.length; i++) {
+                if (i > 0) line.append(',');
+                line.append("{\"name\":");
+                JsonLine.appendString(line, fixtures[i].getName());
+                appendOptional(line, "description", fixtures[i].getDescription());
+                appendOptional(line, "key", fixtures[i].getKey());
+                if (fixtures[i].getContents().length > 0) {
+                    line.append(",\"contains\":");
+                    appendItems(line, fixtures[i].getContents());
+                }
+                line.append('}');
+            }
+            line.append(']');
+        }
+        ExitLock[] locks = room.getLocks();
+        if (locks.length > 0) {
+            line.append(",\"locks\":[");
+            for (int i = 0; i < locks.length; i++) {
+                if (i > 0) line.append(',');
+                line.append("{\"exit\":");
+                JsonLine.appendString(line, locks[i].getExit());
+                line.append(",\"key\":");
+                JsonLine.appendString(line, locks[i].getKey());
+                line.append('}');
+            }
+            line.append(']');
+        }
+        line.append(",\"descriptionOffset\":").append(descriptionOffset);
+        line.append(",\"descriptionLength\":").append(description.length);
+        line.append('}');
+        roomsWriter.write(line.toString());
+        roomsWriter.write('\n');
+
+        descriptionOffset += description.length;
+    }
+
+    /**
+     * Writes one trigger as a JSON object, leaving out the fields that have their default values.
+     *
+     * @param line    The line being built.
+     * @param trigger The trigger to write.
+     */
+    private static void appendTrigger(StringBuilder line, Trigger trigger) {
+        line.append("{\"effect\":");
+        JsonLine.appendString(line, trigger.getEffect().name());
+        if (trigger.getArgument() != null) {
+            line.append(",\"argument\":");
+            JsonLine.appendString(line, trigger.getArgument());
+        }
+        if (trigger.getChance() < 1) {
+            line.append(",\"chance\":").append(trigger.getChance());
+        }
+        if (trigger.isFirstVisitOnly()) {
+            line.append(",\"firstVisitOnly\":true");
+        }
+        if (trigger.getRequires() != null) {
+            line.append(",\"requires\":");
+            JsonLine.appendString(line, trigger.getRequires().name());
+        }
+        line.append('}');
+    }
+
+    /**
+     * Writes a list of items as a JSON array.
+     *
+     * @param line  The line being built.
+     * @param items The items to write.
+     */
+    private static void appendItems(StringBuilder line, Item[] items) {
+        line.append('[');
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0) line.append(',');
+            line.append("{\"name\":");
+            JsonLine.appendString(line, items[i].getName());
+            appendOptional(line, "description", items[i].getDescription());
+            line.append('}');
+        }
+        line.append(']');
+    }
+
+    /**
+     * Writes a string field, unless it is null.
+     */
+    private static void appendOptional(StringBuilder line, String key, String value) {
+        if (value != null) {
+            line.append(",\"").append(key).append("\":");
+            JsonLine.appendString(line, value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            roomsWriter.close();
+        } finally {
+            descriptionsOutput.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+/*
+This is the RoomEffect enum for the Haunted House game.  It lists the special effects a room can cause when the
+player enters it, so the game engine can report them without knowing how they are drawn.
+*/
+
+/**
+ * The RoomEffect enum represents a special effect that plays when a player enters a room.  Which effects a room
+ * causes, and when, is set by the room's {@link Trigger}s.  New constants must be added at the end, because saved
+ * games record the effects a player has seen by ordinal.
+ */
+public enum RoomEffect {
+    /** Nothing special happens. */
+    NONE,
+    /** The lights flicker, as in the Kitchen. */
+    LIGHTS_FLICKER,
+    /** An apparition appears, such as the ghost in the Washroom and the Upstairs Loft.  The trigger's argument
+     *  names the ApparitionType. */
+    APPARITION,
+    /** A sound plays once.  The trigger's argument is the URL of the sound. */
+    SOUND
+}
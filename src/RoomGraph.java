@@ -0,0 +1,325 @@
+/*
+This is the RoomGraph class for the Haunted House game.  It turns the exits of every room into a compact graph, so
+the game can answer questions like "how many rooms away is the Attic" and check that every room can be reached.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The RoomGraph class stores the exits of a house in compressed sparse row form: the exits of room {@code r} are
+ * {@code exitTargets[exitOffsets[r]]} up to {@code exitTargets[exitOffsets[r + 1]]}, as room IDs.
+ * <p>
+ * For houses of up to {@link #MAX_ALL_PAIRS_ROOMS} rooms, the shortest paths between every pair of rooms are
+ * computed once, in parallel, the first time a distance is asked for; after that distance and next-hop queries are
+ * a single array lookup.  Bigger houses would need too much memory for that, so they answer each query with a
+ * breadth-first search instead.
+ */
+public class RoomGraph {
+    /**
+     * The largest house whose all-pairs shortest paths are precomputed, at 4 bytes per pair of rooms.  Hosts with
+     * plenty of memory can raise it with {@code -Dhaunted.maxAllPairsRooms}, up to 46,340 rooms.
+     */
+    public static final int MAX_ALL_PAIRS_ROOMS = Math.min(Integer.getInteger("haunted.maxAllPairsRooms", 4_096), 46_340);
+    /** The distance returned when one room can't be reached from another. */
+    public static final int UNREACHABLE = -1;
+
+    private static final int SOURCES_PER_TASK = 64;
+    private static final char NO_PATH = Character.MAX_VALUE; // UNREACHABLE in the tables, above any room ID or distance
+
+    private final RoomRegistry registry;
+    private final int roomCount;
+    private final int[] exitOffsets;
+    private final int[] exitTargets;
+
+    // Row major roomCount x roomCount tables, filled in by computeShortestPaths().  They are unsigned, so every room
+    // ID and distance up to MAX_ALL_PAIRS_ROOMS fits
+    private volatile char[] distances;
+    private char[] nextHops; // The ID of the room to move into first
+
+    /**
+     * Constructs a new RoomGraph from the resolved exits of every room in a registry.  Exits that don't lead to a
+     * known room are left out of the graph.
+     *
+     * @param registry The registry holding every room of the house.
+     */
+    public RoomGraph(RoomRegistry registry) {
+        this.registry = registry;
+        this.roomCount = registry.size();
+        this.exitOffsets = new int[roomCount + 1];
+
+        int exitCount = 0;
+        for (int id = 0; id < roomCount; id++) {
+            for (Room exitRoom : registry.findById(id).getExitRooms()) {
+                if (exitRoom != null) exitCount++;
+            }
+        }
+
+        this.exitTargets = new int[exitCount];
+        int position = 0;
+        for (int id = 0; id < roomCount; id++) {
+            exitOffsets[id] = position;
+            for (Room exitRoom : registry.findById(id).getExitRooms()) {
+                if (exitRoom != null) {
+                    exitTargets[position++] = exitRoom.getId();
+                }
+            }
+        }
+        exitOffsets[roomCount] = position;
+    }
+
+    /**
+     * Gets the number of rooms in the graph.
+     *
+     * @return The number of rooms.
+     */
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    /**
+     * Gets the number of exits out of a room that lead to a known room.
+     *
+     * @param roomId The ID of the room.
+     * @return The number of exits.
+     */
+    public int getExitCount(int roomId) {
+        return exitOffsets[roomId + 1] - exitOffsets[roomId];
+    }
+
+    /**
+     * Gets the room an exit leads to.
+     *
+     * @param roomId    The ID of the room.
+     * @param exitIndex The index of the exit, from 0 to {@link #getExitCount(int)} - 1.
+     * @return The ID of the room the exit leads to.
+     */
+    public int getExitTarget(int roomId, int exitIndex) {
+        return exitTargets[exitOffsets[roomId] + exitIndex];
+    }
+
+    /**
+     * Gets the number of moves it takes to get from one room to another.
+     *
+     * @param fromId The ID of the room to start in.
+     * @param toId   The ID of the room to get to.
+     * @return The number of moves, or {@link #UNREACHABLE} if there is no way there.
+     */
+    public int distance(int fromId, int toId) {
+        char[] table = shortestPaths();
+        if (table != null) {
+            char distance = table[fromId * roomCount + toId];
+            return distance == NO_PATH ? UNREACHABLE : distance;
+        }
+        return search(fromId, toId, false);
+    }
+
+    /**
+     * Gets the next room on a shortest path from one room to another.
+     *
+     * @param fromId The ID of the room to start in.
+     * @param toId   The ID of the room to get to.
+     * @return The ID of the room to move into next, or {@link #UNREACHABLE} if there is no way there or the two
+     *         rooms are the same.
+     */
+    public int nextHop(int fromId, int toId) {
+        char[] table = shortestPaths();
+        if (table != null) {
+            char hop = nextHops[fromId * roomCount + toId];
+            return hop == NO_PATH ? UNREACHABLE : hop;
+        }
+        return search(fromId, toId, true);
+    }
+
+    /**
+     * Finds every room that can be reached from a room.
+     *
+     * @param fromId The ID of the room to start in.
+     * @return A set of the IDs of the reachable rooms, including the starting room.
+     */
+    public BitSet reachableFrom(int fromId) {
+        BitSet reached = new BitSet(roomCount);
+        int[] queue = new int[roomCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = fromId;
+        reached.set(fromId);
+        while (head < tail) {
+            int room = queue[head++];
+            for (int i = exitOffsets[room]; i < exitOffsets[room + 1]; i++) {
+                int target = exitTargets[i];
+                if (!reached.get(target)) {
+                    reached.set(target);
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Checks the house for problems: exits that lead to rooms that don't exist, and rooms that can't be reached
+     * from the room the player starts in.
+     *
+     * @param startRoomId The ID of the room the player starts in.
+     * @return A description of every problem found, or an empty list if there are none.
+     */
+    public List<String> validate(int startRoomId) {
+        List<String> problems = new ArrayList<>();
+        for (String exit : registry.getDanglingExits()) {
+            problems.add("Exit leads to an unknown room: " + exit);
+        }
+        BitSet reached = reachableFrom(startRoomId);
+        for (int id = reached.nextClearBit(0); id < roomCount; id = reached.nextClearBit(id + 1)) {
+            problems.add("Room can't be reached from " + registry.findById(startRoomId).getName() + ": "
+                    + registry.findById(id).getName());
+        }
+        return problems;
+    }
+
+    /**
+     * Gets the all-pairs shortest path table, computing it the first time if the house is small enough.
+     *
+     * @return The distance table, or null if the house is too big to have one.
+     */
+    private char[] shortestPaths() {
+        if (roomCount > MAX_ALL_PAIRS_ROOMS) return null;
+        char[] table = distances;
+        if (table == null) {
+            synchronized (this) {
+                table = distances;
+                if (table == null) {
+                    table = computeShortestPaths();
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Computes the shortest paths between every pair of rooms, with one breadth-first search per room spread over
+     * the common fork-join pool.
+     *
+     * @return The distance table.
+     */
+    private char[] computeShortestPaths() {
+        char[] distanceTable = new char[roomCount * roomCount];
+        char[] hopTable = new char[roomCount * roomCount];
+        ForkJoinPool.commonPool().invoke(new SearchTask(0, roomCount, distanceTable, hopTable));
+        nextHops = hopTable;
+        distances = distanceTable; // Published last, through the volatile field
+        return distanceTable;
+    }
+
+    /**
+     * Runs a breadth-first search from one room, filling in its row of the distance and next-hop tables.  The
+     * next hop of every room is the room behind the exit of the source room that the search first went through to
+     * find it.
+     *
+     * @param source       The ID of the room to start from.
+     * @param distanceRow  Where to write the distances, indexed by room ID.
+     * @param hopRow       Where to write the next hops, indexed by room ID.
+     * @param rowOffset    Where the row starts in the two arrays.
+     * @param queue        A scratch array of at least roomCount entries.
+     */
+    private void searchFrom(int source, char[] distanceRow, char[] hopRow, int rowOffset, int[] queue) {
+        Arrays.fill(distanceRow, rowOffset, rowOffset + roomCount, NO_PATH);
+        Arrays.fill(hopRow, rowOffset, rowOffset + roomCount, NO_PATH);
+        distanceRow[rowOffset + source] = 0;
+
+        int head = 0;
+        int tail = 0;
+        for (int i = exitOffsets[source]; i < exitOffsets[source + 1]; i++) {
+            int target = exitTargets[i];
+            if (distanceRow[rowOffset + target] == NO_PATH) {
+                distanceRow[rowOffset + target] = 1;
+                hopRow[rowOffset + target] = (char) target;
+                queue[tail++] = target;
+            }
+        }
+        while (head < tail) {
+            int room = queue[head++];
+            char nextDistance = (char) (distanceRow[rowOffset + room] + 1);
+            for (int i = exitOffsets[room]; i < exitOffsets[room + 1]; i++) {
+                int target = exitTargets[i];
+                if (distanceRow[rowOffset + target] == NO_PATH) {
+                    distanceRow[rowOffset + target] = nextDistance;
+                    hopRow[rowOffset + target] = hopRow[rowOffset + room];
+                    queue[tail++] = target;
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers a single distance or next-hop query with a breadth-first search, for houses too big for the tables.
+     *
+     * @param fromId  The ID of the room to start in.
+     * @param toId    The ID of the room to get to.
+     * @param nextHop True to return the next room on the path, false to return the distance.
+     * @return The distance or next room, or {@link #UNREACHABLE}.
+     */
+    private int search(int fromId, int toId, boolean nextHop) {
+        if (fromId == toId) return nextHop ? UNREACHABLE : 0;
+
+        int[] distance = new int[roomCount];
+        int[] firstStep = new int[roomCount];
+        Arrays.fill(distance, UNREACHABLE);
+        int[] queue = new int[roomCount];
+        int head = 0;
+        int tail = 0;
+        distance[fromId] = 0;
+        queue[tail++] = fromId;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int i = exitOffsets[room]; i < exitOffsets[room + 1]; i++) {
+                int target = exitTargets[i];
+                if (distance[target] != UNREACHABLE) continue;
+                distance[target] = distance[room] + 1;
+                firstStep[target] = room == fromId ? target : firstStep[room];
+                if (target == toId) {
+                    return nextHop ? firstStep[target] : distance[target];
+                }
+                queue[tail++] = target;
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * A fork-join task that runs the breadth-first searches for a range of source rooms.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final char[] distanceTable;
+        private final char[] hopTable;
+
+        SearchTask(int from, int to, char[] distanceTable, char[] hopTable) {
+            this.from = from;
+            this.to = to;
+            this.distanceTable = distanceTable;
+            this.hopTable = hopTable;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SearchTask(from, middle, distanceTable, hopTable),
+                        new SearchTask(middle, to, distanceTable, hopTable));
+                return;
+            }
+            int[] queue = new int[roomCount];
+            for (int source = from; source < to; source++) {
+                searchFrom(source, distanceTable, hopTable, source * roomCount, queue);
+            }
+        }
+    }
+}
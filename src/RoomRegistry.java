@@ -0,0 +1,100 @@
+/*
+This is the RoomRegistry class for the Haunted House game.  It indexes every room by a case-folded name key and by
+an integer ID, and resolves the exit names of every room into direct references once, when the house is loaded.
+*/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The RoomRegistry class gives constant time lookup of rooms by name or by ID.  Room IDs are assigned in the order
+ * the rooms are registered, starting at 0, so they can be used as indexes into arrays.
+ */
+public class RoomRegistry {
+    private final Room[] rooms;
+    private final Map<String, Room> roomsByKey;
+    private final List<String> danglingExits = new ArrayList<>();
+
+    /**
+     * Constructs a new RoomRegistry, assigns every room its ID, and resolves all of the exits.
+     *
+     * @param rooms The rooms of the house.
+     */
+    public RoomRegistry(List<Room> rooms) {
+        this.rooms = rooms.toArray(new Room[0]);
+        this.roomsByKey = new HashMap<>(this.rooms.length * 2);
+
+        for (int id = 0; id < this.rooms.length; id++) {
+            Room room = this.rooms[id];
+            room.setId(id);
+            roomsByKey.put(keyOf(room.getName()), room);
+        }
+
+        // Exits are resolved once here, so moving between rooms never has to search for a name again
+        for (Room room : this.rooms) {
+            String[] exits = room.getExits();
+            Room[] exitRooms = new Room[exits.length];
+            for (int i = 0; i < exits.length; i++) {
+                exitRooms[i] = roomsByKey.get(keyOf(exits[i]));
+                if (exitRooms[i] == null) {
+                    danglingExits.add(room.getName() + " -> " + exits[i]);
+                }
+            }
+            room.setExitRooms(exitRooms);
+        }
+    }
+
+    /**
+     * Converts a room name into the key it is stored under, so that lookups ignore case.
+     *
+     * @param name The name of a room.
+     * @return The case-folded key for the name.
+     */
+    public static String keyOf(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds a room by its name, ignoring case.
+     *
+     * @param name The name of the room to find.
+     * @return The Room object if found, otherwise null.
+     */
+    public Room findByName(String name) {
+        if (name == null) return null;
+        return roomsByKey.get(keyOf(name));
+    }
+
+    /**
+     * Finds a room by its ID.
+     *
+     * @param id The ID of the room to find.
+     * @return The Room object if the ID is valid, otherwise null.
+     */
+    public Room findById(int id) {
+        if (id < 0 || id >= rooms.length) return null;
+        return rooms[id];
+    }
+
+    /**
+     * Gets the number of rooms in the registry.
+     *
+     * @return The number of rooms.
+     */
+    public int size() {
+        return rooms.length;
+    }
+
+    /**
+     * Gets the exits that don't lead to any known room, written as "Room -> Exit".
+     *
+     * @return A read-only list of the dangling exits.
+     */
+    public List<String> getDanglingExits() {
+        return Collections.unmodifiableList(danglingExits);
+    }
+}
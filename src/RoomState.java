@@ -0,0 +1,80 @@
+/*
+This is the RoomState class for the Haunted House game.  It is what the game engine hands back to a front end after
+a move: the room the player is now in and the effects entering it set off.
+*/
+
+/**
+ * The RoomState class is an immutable snapshot of the room a player is in and the triggers that fired as they
+ * entered it.  The engine's {@link TriggerTable} keeps one RoomState per room and combination of fired triggers, and
+ * hands the same objects to every player, so moving doesn't allocate.
+ */
+public final class RoomState {
+    private static final Trigger[] NO_TRIGGERS = new Trigger[0];
+
+    private final Room room;
+    private final Trigger[] fired;
+    private final int effectBits;
+
+    /**
+     * Constructs a new RoomState where no triggers fired.
+     *
+     * @param room The room the player is in.
+     */
+    public RoomState(Room room) {
+        this(room, NO_TRIGGERS);
+    }
+
+    /**
+     * Constructs a new RoomState.
+     *
+     * @param room  The room the player is in.
+     * @param fired The triggers that fired as the player entered the room.
+     */
+    public RoomState(Room room, Trigger[] fired) {
+        this.room = room;
+        this.fired = fired;
+        int bits = 0;
+        for (Trigger trigger : fired) {
+            bits |= 1 << trigger.getEffect().ordinal();
+        }
+        this.effectBits = bits;
+    }
+
+    /**
+     * Gets the room the player is in.
+     *
+     * @return The current room.
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the triggers that fired as the player entered the room, in the order the room lists them.  The array
+     * must not be changed.
+     *
+     * @return The fired triggers, which is empty if nothing special happened.
+     */
+    public Trigger[] getFired() {
+        return fired;
+    }
+
+    /**
+     * Checks whether entering the room set off an effect.
+     *
+     * @param effect The effect to check.
+     * @return True if one of the fired triggers has the effect.
+     */
+    public boolean hasEffect(RoomEffect effect) {
+        return (effectBits & (1 << effect.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the effects that fired, for recording them in the player's session.
+     *
+     * @return One bit per RoomEffect ordinal.
+     */
+    int getEffectBits() {
+        return effectBits;
+    }
+}
@@ -0,0 +1,363 @@
+/*
+This is the SessionStore class for the Haunted House game.  It saves every player's game to disk as they play, so
+the game can carry on where it left off after it is closed or crashes.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * The SessionStore class keeps sessions in two files in a folder:
+ * <ul>
+ *     <li>{@code sessions.snapshot}, every session at the time of the last compaction, and</li>
+ *     <li>{@code sessions.journal}, every change to a session since then, appended as it happens.</li>
+ * </ul>
+ * Both files start with the same header, naming the house the records were written for, and hold the same
+ * fixed-layout records, made of room IDs rather than names:
+ * <pre>
+ * long   session ID
+ * long   when the session was last used, in milliseconds since the epoch
+ * int    current room ID, or -1 if the session was deleted
+ * int    effects the player has seen, one bit per RoomEffect
+ * long[] rooms the player has visited, one bit per room ID
+ * long[] items carried, fixtures opened and exits unlocked, one bit per {@link ItemTable} flag
+ * int    CRC32 of everything above
+ * </pre>
+ * A file saved for a different house, whose room and item IDs may mean other things now, is ignored: the snapshot
+ * is left for the next compaction to replace, and the journal is emptied when the store is opened.  A crash can at
+ * worst leave a torn record at the end of the journal, which fails its checksum and is dropped when the store is
+ * opened again.  Compaction writes a new snapshot through a memory-mapped file, swaps it in atomically, and then
+ * empties the journal.
+ * <p>
+ * The last-used time is the one at the session's last change, or at the last compaction if it was only looked at
+ * since, so a session's idle time carries on across restarts.  Snapshots of version 2, from before the time was
+ * saved, can still be read, and their sessions count as used when they are restored.
+ */
+public class SessionStore implements Closeable {
+    public static final String SNAPSHOT_FILE = "sessions.snapshot";
+    public static final String JOURNAL_FILE = "sessions.journal";
+
+    private static final int MAGIC = 0x48485353; // "HHSS"
+    private static final int VERSION = 3; // Version 2 records had no last-used time, version 1 no item flags
+    private static final int OLDEST_VERSION = 2; // The oldest snapshot that can still be read
+    private static final int HEADER_SIZE = 32;
+    private static final int DELETED = -1;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final int roomCount;
+    private final int words;
+    private final int flagCount;
+    private final int flagWords;
+    private final int recordSize;
+    private final ByteBuffer recordBuffer;
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel journal;
+    private long journalRecords;
+
+    /**
+     * The callback {@link #restore(RecordVisitor)} hands every saved session to.
+     */
+    public interface RecordVisitor {
+        /**
+         * Receives one saved session.
+         *
+         * @param sessionId        The ID of the session.
+         * @param roomId           The ID of the room the player is in.
+         * @param triggeredEffects The bits of the effects the player has seen.
+         * @param visited          The bits of the visited rooms, a new array the visitor may keep.
+         * @param flags            The item flags of the session, a new array the visitor may keep.
+         * @param lastUsed         When the session was last used, in milliseconds since the epoch.
+         */
+        void accept(long sessionId, int roomId, int triggeredEffects, long[] visited, long[] flags, long lastUsed);
+    }
+
+    /**
+     * Opens the store in a folder, creating the folder if it doesn't exist.
+     *
+     * @param dir       The folder holding the store's files.
+     * @param roomCount The number of rooms in the house, which sets the size of every record.
+     * @param flagCount The number of item flags of the house, from {@link ItemTable#getFlagCount()}.
+     * @throws IOException If the files can't be opened.
+     */
+    public SessionStore(Path dir, int roomCount, int flagCount) throws IOException {
+        Files.createDirectories(dir);
+        this.snapshotFile = dir.resolve(SNAPSHOT_FILE);
+        this.journalFile = dir.resolve(JOURNAL_FILE);
+        this.roomCount = roomCount;
+        this.words = GameSession.wordsFor(roomCount);
+        this.flagCount = flagCount;
+        this.flagWords = GameSession.wordsFor(flagCount);
+        this.recordSize = 8 + 8 + 4 + 4 + 8 * words + 8 * flagWords + 4;
+        this.recordBuffer = ByteBuffer.allocateDirect(recordSize);
+        this.journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        checkJournal();
+    }
+
+    /**
+     * Empties the journal, leaving only its header, unless it was written for this house.
+     */
+    private void checkJournal() throws IOException {
+        long size = journal.size();
+        if (size > 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && journal.read(header, header.position()) > 0) {
+                // Read until the header is full or the file ends
+            }
+            header.flip();
+            if (readHeader(header, journalFile) == VERSION) return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        putHeader(header, 0); // The journal's records are counted by their checksums
+        header.flip();
+        journal.truncate(0);
+        while (header.hasRemaining()) {
+            journal.write(header, header.position());
+        }
+        journal.force(true);
+    }
+
+    /**
+     * Appends the current state of a session to the journal.
+     *
+     * @param session The session to save.
+     * @throws UncheckedIOException If the journal can't be written.
+     */
+    public synchronized void save(GameSession session) {
+        append(session.getId(), session.getLastUsed(), session.getCurrent().getRoom().getId(),
+                session.getTriggeredEffects(), session.getVisitedWords(), session.getFlagWords());
+    }
+
+    /**
+     * Records in the journal that a session has been deleted.
+     *
+     * @param sessionId The ID of the session.
+     * @throws UncheckedIOException If the journal can't be written.
+     */
+    public synchronized void delete(long sessionId) {
+        append(sessionId, System.currentTimeMillis(), DELETED, 0, null, null);
+    }
+
+    private void append(long sessionId, long lastUsed, int roomId, int triggeredEffects, long[] visited,
+                        long[] flags) {
+        recordBuffer.clear();
+        putRecord(recordBuffer, sessionId, lastUsed, roomId, triggeredEffects, visited, flags);
+        recordBuffer.flip();
+        try {
+            long position = HEADER_SIZE + journalRecords * recordSize;
+            while (recordBuffer.hasRemaining()) {
+                position += journal.write(recordBuffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write to " + journalFile, e);
+        }
+        journalRecords++;
+    }
+
+    /**
+     * Writes one record, with its checksum, at the buffer's position.
+     */
+    private void putRecord(ByteBuffer buffer, long sessionId, long lastUsed, int roomId, int triggeredEffects,
+                           long[] visited, long[] flags) {
+        int start = buffer.position();
+        buffer.putLong(sessionId);
+        buffer.putLong(lastUsed);
+        buffer.putInt(roomId);
+        buffer.putInt(triggeredEffects);
+        for (int i = 0; i < words; i++) {
+            buffer.putLong(visited == null ? 0 : visited[i]);
+        }
+        for (int i = 0; i < flagWords; i++) {
+            buffer.putLong(flags == null ? 0 : flags[i]);
+        }
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * Computes the checksum of the record that starts at the given position and ends at the buffer's position.
+     */
+    private int checksum(ByteBuffer buffer, int start) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(buffer.position());
+        record.position(start);
+        crc.reset();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Gets the number of records in the journal since the last compaction.
+     *
+     * @return The number of journal records.
+     */
+    public synchronized long getJournalRecords() {
+        return journalRecords;
+    }
+
+    /**
+     * Reads every saved session: first the snapshot, then the journal on top of it.  A torn record at the end of
+     * the journal is dropped from the file.
+     *
+     * @param visitor Receives every saved session.  A session may be passed more than once, the last time with its
+     *                latest state, so the visitor should replace earlier versions.  A session that was deleted is
+     *                passed with a room ID of -1 and no visited rooms, and the visitor should forget it.
+     * @throws IOException If the files can't be read.
+     */
+    public synchronized void restore(RecordVisitor visitor) throws IOException {
+        if (Files.exists(snapshotFile)) {
+            try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+                MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int version = readHeader(snapshot, snapshotFile);
+                if (version >= OLDEST_VERSION) {
+                    readRecords(snapshot, visitor, version == VERSION);
+                }
+            }
+        }
+
+        long size = journal.size() - HEADER_SIZE;
+        if (size > 0) {
+            MappedByteBuffer entries = journal.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size);
+            journalRecords = readRecords(entries, visitor, true);
+            if (journalRecords * recordSize < size) {
+                journal.truncate(HEADER_SIZE + journalRecords * recordSize); // Drop a torn record from a crash
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a snapshot or the journal at the buffer's position.
+     */
+    private void putHeader(ByteBuffer buffer, long recordCount) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(roomCount);
+        buffer.putInt(words);
+        buffer.putInt(flagCount);
+        buffer.putInt(0); // Reserved
+        buffer.putLong(recordCount);
+    }
+
+    /**
+     * Reads and checks the header of a snapshot or the journal.
+     *
+     * @param buffer The file's contents, from its start.
+     * @param file   The file, to name in messages.
+     * @return The version of the file, or -1 if it isn't a session file or was written for a different house.
+     */
+    private int readHeader(ByteBuffer buffer, Path file) {
+        int version = buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ? -1 : buffer.getInt();
+        if (version < OLDEST_VERSION || version > VERSION) {
+            System.err.println(file + " is not a session file this version of the game can read, ignoring it");
+            return -1;
+        }
+        int savedRoomCount = buffer.getInt();
+        buffer.getInt(); // Words per record, which follows from the room count
+        int savedFlagCount = buffer.getInt();
+        buffer.getInt(); // Reserved
+        buffer.getLong(); // Record count, the records themselves are checked one by one
+        if (savedRoomCount != roomCount || savedFlagCount != flagCount) {
+            System.err.println(file + " was saved for a house of " + savedRoomCount + " rooms and "
+                    + savedFlagCount + " item flags, ignoring it");
+            return -1;
+        }
+        return version;
+    }
+
+    /**
+     * Reads records until the end of the buffer or the first record with a bad checksum.
+     *
+     * @param withLastUsed False for version 2 records, which have no last-used time.  Their sessions count as used
+     *                     now.
+     * @return The number of good records read.
+     */
+    private long readRecords(ByteBuffer buffer, RecordVisitor visitor, boolean withLastUsed) {
+        long now = System.currentTimeMillis();
+        int size = withLastUsed ? recordSize : recordSize - 8;
+        long count = 0;
+        while (buffer.remaining() >= size) {
+            int start = buffer.position();
+            long sessionId = buffer.getLong();
+            long lastUsed = withLastUsed ? buffer.getLong() : now;
+            int roomId = buffer.getInt();
+            int triggeredEffects = buffer.getInt();
+            long[] visited = new long[words];
+            for (int i = 0; i < words; i++) {
+                visited[i] = buffer.getLong();
+            }
+            long[] flags = new long[flagWords];
+            for (int i = 0; i < flagWords; i++) {
+                flags[i] = buffer.getLong();
+            }
+            int expected = checksum(buffer, start);
+            if (buffer.getInt() != expected) {
+                break;
+            }
+            count++;
+            if (roomId == DELETED) {
+                visitor.accept(sessionId, DELETED, 0, null, null, lastUsed);
+            } else if (roomId >= 0 && roomId < roomCount) {
+                visitor.accept(sessionId, roomId, triggeredEffects, visited, flags, lastUsed);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes every live session to a new snapshot and empties the journal.
+     *
+     * @param sessions The sessions to keep.
+     * @throws IOException If the snapshot can't be written.
+     */
+    public synchronized void compact(Collection<GameSession> sessions) throws IOException {
+        GameSession[] live = sessions.toArray(new GameSession[0]);
+        long size = HEADER_SIZE + (long) live.length * recordSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Too many sessions for one snapshot: " + live.length);
+        }
+
+        Path temporary = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            putHeader(snapshot, live.length);
+            for (GameSession session : live) {
+                putRecord(snapshot, session.getId(), session.getLastUsed(), session.getCurrent().getRoom().getId(),
+                        session.getTriggeredEffects(), session.getVisitedWords(), session.getFlagWords());
+            }
+            snapshot.force();
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Only now that the snapshot is safe can the journal be emptied, keeping its header
+        journal.truncate(HEADER_SIZE);
+        journal.force(true);
+        journalRecords = 0;
+    }
+
+    /**
+     * Forces everything written to the journal onto the disk.
+     *
+     * @throws IOException If the journal can't be synced.
+     */
+    public synchronized void sync() throws IOException {
+        journal.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.force(false);
+        journal.close();
+    }
+}
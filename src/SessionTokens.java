@@ -0,0 +1,124 @@
+/*
+This is the SessionTokens class for the Haunted House game.  It turns session IDs into tokens that players can't
+guess, so a player can only come back to their own game.
+*/
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The SessionTokens class signs session IDs with a secret key.  A token is the session ID followed by the first 128
+ * bits of an HMAC-SHA256 of it, {@code "<id>.<signature>"}, so session IDs can stay small sequential numbers while
+ * only the player who was given a token can use it.  Checking a token needs nothing but the key, and the key is kept
+ * in the folder the sessions are saved in, so tokens keep working after the server restarts.
+ */
+public class SessionTokens {
+    public static final String KEY_FILE = "session.key";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+    private static final int SIGNATURE_BYTES = 16;
+
+    private final SecretKeySpec key;
+
+    private SessionTokens(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    /**
+     * Loads the key kept in a save folder, creating it the first time, readable only by its owner where the file
+     * system allows it.  A new key is written to a temporary file and only then linked into place, so nobody else can
+     * read it and no other server sharing the folder can find it half written.
+     *
+     * @param dir The folder the sessions are saved in.
+     * @return The session tokens.
+     * @throws IOException If the key can't be read or written.
+     */
+    public static SessionTokens load(Path dir) throws IOException {
+        Path file = dir.resolve(KEY_FILE);
+        if (!Files.exists(file)) {
+            byte[] secret = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(secret);
+            Files.createDirectories(dir);
+            Path temporary;
+            try {
+                temporary = Files.createTempFile(dir, KEY_FILE, ".tmp",
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                temporary = Files.createTempFile(dir, KEY_FILE, ".tmp"); // Not a POSIX file system
+            }
+            try {
+                Files.write(temporary, secret, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+                try {
+                    Files.createLink(file, temporary); // Fails, unlike a rename, if the key is already there
+                } catch (UnsupportedOperationException e) {
+                    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // Another server sharing the folder made one first, use theirs
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        byte[] secret = Files.readAllBytes(file);
+        if (secret.length < KEY_BYTES) {
+            throw new IOException(file + " is too short to be a session key");
+        }
+        return new SessionTokens(secret);
+    }
+
+    /**
+     * Gives the token for a session.
+     *
+     * @param sessionId The ID of the session.
+     * @return The token.
+     */
+    public String issue(long sessionId) {
+        return sessionId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(sessionId));
+    }
+
+    /**
+     * Checks a token and finds the session it was given for.
+     *
+     * @param token The token, as given by {@link #issue(long)}.
+     * @return The session ID, or -1 if the token wasn't given by these tokens' key.
+     */
+    public long redeem(String token) {
+        if (token == null) return -1;
+        int dot = token.indexOf('.');
+        if (dot <= 0) return -1;
+        long sessionId;
+        byte[] signature;
+        try {
+            sessionId = Long.parseLong(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        // Compared in constant time, so how long a wrong guess takes gives nothing away
+        return sessionId >= 0 && MessageDigest.isEqual(signature, sign(sessionId)) ? sessionId : -1;
+    }
+
+    private byte[] sign(long sessionId) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM); // Not thread safe, and cheap enough to make per token
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(sessionId).array()),
+                    SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 isn't available", e); // Every Java runtime has it
+        }
+    }
+}
@@ -0,0 +1,470 @@
+/*
+This is the SimulationRunner class for the Haunted House game.  It plays the game automatically with many simulated
+players at once, so the game engine can be load tested without anyone clicking through the rooms.
+*/
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SimulationRunner class runs simulated players, called agents, through a house.  Every agent has its own
+ * session in the game engine and chooses its exits from {@link Room#getExitRooms()} by one of the {@link Policy}
+ * rules.  Agents run in parallel on every core, and the runner reports the moves per second, how much of the house
+ * the agents covered, and the percentiles of how long each move took.
+ * <p>
+ * With --ui, a single agent plays the real game window instead, through {@link SimulationWindow}, so the cost of the
+ * JavaFX side of a move shows up too.  Without it, JavaFX isn't needed on the class path.
+ */
+public class SimulationRunner {
+    private static final int UNREACHABLE = RoomGraph.UNREACHABLE;
+
+    /**
+     * The rules agents use to choose their next exit.
+     */
+    public enum Policy {
+        /** Take a random exit every time. */
+        RANDOM_WALK,
+        /** Go to the nearest room not visited yet, until every reachable room has been visited. */
+        EXPLORE_ALL,
+        /** Pick a random room, take a shortest path there, and then pick another. */
+        SHORTEST_TO_TARGET
+    }
+
+    private final GameEngine engine;
+    private final ItemTable locks;
+    private final Policy policy;
+    private final long seed;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong moves = new AtomicLong();
+    private final ThreadLocal<SearchScratch> scratch;
+
+    private int agentCount;
+    private long elapsedNanos;
+    private long roomsCovered;
+    private long visitedTotal;
+
+    /**
+     * Constructs a new SimulationRunner.
+     *
+     * @param engine The game engine to play.  Agents use session IDs from 1 up, so it should have no other sessions.
+     * @param policy The rule every agent uses to choose its exits.
+     * @param seed   The seed of the agents' random choices.
+     */
+    public SimulationRunner(GameEngine engine, Policy policy, long seed) {
+        this.engine = engine;
+        this.locks = engine.getItemTable();
+        this.policy = policy;
+        this.seed = seed;
+        int roomCount = engine.getRegistry().size();
+        this.scratch = ThreadLocal.withInitial(() -> new SearchScratch(roomCount));
+    }
+
+    /**
+     * Runs agents through the house until every agent has made its moves or has nowhere left to go.  This method
+     * blocks until the simulation is over.
+     *
+     * @param agents        The number of agents.
+     * @param movesPerAgent The most moves each agent makes.
+     * @param threads       The number of threads to run the agents on.
+     * @throws InterruptedException If the thread is interrupted while waiting for the agents.
+     */
+    public void run(int agents, int movesPerAgent, int threads) throws InterruptedException {
+        agentCount = agents;
+        List<Callable<Void>> tasks = new ArrayList<>(agents);
+        for (int i = 1; i <= agents; i++) {
+            Agent agent = new Agent(i);
+            tasks.add(() -> {
+                agent.play(movesPerAgent);
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "agent");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("An agent failed", e.getCause());
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+            pool.shutdownNow();
+        }
+
+        measureCoverage(agents);
+        for (long sessionId = 1; sessionId <= agents; sessionId++) {
+            engine.endSession(sessionId);
+        }
+    }
+
+    /**
+     * Counts the rooms visited by any agent, and by every agent added up, from the agents' sessions.
+     *
+     * @param agents The number of agents.
+     */
+    private void measureCoverage(int agents) {
+        long[] union = new long[GameSession.wordsFor(engine.getRegistry().size())];
+        visitedTotal = 0;
+        for (long sessionId = 1; sessionId <= agents; sessionId++) {
+            GameSession session = engine.getSession(sessionId);
+            long[] visited = session.getVisitedWords();
+            for (int i = 0; i < union.length; i++) {
+                union[i] |= visited[i];
+            }
+            visitedTotal += session.getVisitedCount();
+        }
+        roomsCovered = 0;
+        for (long word : union) {
+            roomsCovered += Long.bitCount(word);
+        }
+    }
+
+    /**
+     * Makes one move somewhere other than the runner's engine, such as in the game window.
+     */
+    interface MoveDriver {
+        /**
+         * Makes a move.
+         *
+         * @param exitIndex The index of the exit to take.
+         * @return How long the move took, in nanoseconds.
+         * @throws Exception If the move can't be made.
+         */
+        long move(int exitIndex) throws Exception;
+    }
+
+    /**
+     * Plays with one agent whose moves are made by a driver.  The runner's own engine is moved in step with the
+     * driver, so the agent can plan its moves.
+     *
+     * @param movesToMake The most moves to make.
+     * @param driver      Makes each move and times it.
+     * @throws Exception If the driver fails.
+     */
+    void runMirrored(int movesToMake, MoveDriver driver) throws Exception {
+        agentCount = 1;
+        Agent agent = new Agent(1);
+        RoomState state = agent.start();
+        long start = System.nanoTime();
+        for (int move = 0; move < movesToMake; move++) {
+            int exit = agent.chooseExit(state);
+            if (exit < 0) break;
+            latency.record(driver.move(exit));
+            moves.incrementAndGet();
+            state = engine.move(1, exit);
+        }
+        elapsedNanos = System.nanoTime() - start;
+        measureCoverage(1);
+        engine.endSession(1);
+    }
+
+    /**
+     * Prints the results of the last run.
+     *
+     * @param out Where to print them.
+     */
+    public void printReport(PrintStream out) {
+        int roomCount = engine.getRegistry().size();
+        double seconds = elapsedNanos / 1e9;
+        out.printf(Locale.ROOT, "Policy: %s, agents: %d, rooms in the house: %d%n", policy, agentCount, roomCount);
+        out.printf(Locale.ROOT, "Moves: %d in %.0f ms (%.0f moves/s)%n", moves.get(), seconds * 1000,
+                moves.get() / Math.max(seconds, 1e-9));
+        out.printf(Locale.ROOT, "Rooms covered: %d of %d (%.1f%%), %.1f per agent on average%n", roomsCovered,
+                roomCount, 100.0 * roomsCovered / roomCount, (double) visitedTotal / Math.max(agentCount, 1));
+        out.printf(Locale.ROOT, "Move latency: p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                latency.percentile(50) / 1000.0, latency.percentile(90) / 1000.0, latency.percentile(99) / 1000.0,
+                latency.percentile(99.9) / 1000.0, latency.getMax() / 1000.0);
+    }
+
+    /**
+     * Gets the histogram of how long each move took.
+     *
+     * @return The move latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the number of moves made in the last run.
+     *
+     * @return The number of moves.
+     */
+    public long getMoves() {
+        return moves.get();
+    }
+
+    /**
+     * Gets the number of different rooms any agent visited in the last run.
+     *
+     * @return The number of rooms covered.
+     */
+    public long getRoomsCovered() {
+        return roomsCovered;
+    }
+
+    /**
+     * Gets the index of the exit of a room that leads to another room.
+     *
+     * @param room     The room the agent is in.
+     * @param targetId The ID of the room the exit should lead to.
+     * @return The index of the exit in {@link Room#getExits()}, or -1 if no exit leads there.
+     */
+    private static int exitTo(Room room, int targetId) {
+        Room[] exitRooms = room.getExitRooms();
+        for (int i = 0; i < exitRooms.length; i++) {
+            if (exitRooms[i] != null && exitRooms[i].getId() == targetId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One simulated player, with its own session and random choices.
+     */
+    private final class Agent {
+        private final long sessionId;
+        private final SplittableRandom random;
+        private int target = UNREACHABLE; // The room SHORTEST_TO_TARGET is heading for
+        private int[] path = new int[0]; // The rooms still to walk through, last room first
+        private int pathLength;
+        private GameSession session;
+
+        Agent(long sessionId) {
+            this.sessionId = sessionId;
+            this.random = new SplittableRandom(seed ^ (sessionId * 0x9E3779B97F4A7C15L));
+        }
+
+        /**
+         * Starts the agent's session in the start room.
+         *
+         * @return The state of the start room.
+         */
+        RoomState start() {
+            RoomState state = engine.startSession(sessionId);
+            session = engine.getSession(sessionId);
+            return state;
+        }
+
+        /**
+         * Starts a session and makes moves until the moves run out or the policy has nowhere left to go.
+         */
+        void play(int movesToMake) {
+            RoomState state = start();
+            for (int move = 0; move < movesToMake; move++) {
+                int exit = chooseExit(state);
+                if (exit < 0) return;
+
+                long before = System.nanoTime();
+                RoomState next = engine.move(sessionId, exit);
+                latency.record(System.nanoTime() - before);
+                if (next == null) return;
+                moves.incrementAndGet();
+                state = next;
+            }
+        }
+
+        /**
+         * Chooses the next exit by the runner's policy.
+         *
+         * @return The index of the exit to take, or -1 if there is nowhere left to go.
+         */
+        int chooseExit(RoomState state) {
+            Room room = state.getRoom();
+            switch (policy) {
+                case EXPLORE_ALL:
+                    return exploreExit(room);
+                case SHORTEST_TO_TARGET:
+                    return targetExit(room);
+                default:
+                    return randomExit(room);
+            }
+        }
+
+        private int randomExit(Room room) {
+            int exitCount = room.getExitRooms().length;
+            int open = 0;
+            for (int exit = 0; exit < exitCount; exit++) {
+                if (isOpen(room, exit)) open++;
+            }
+            if (open == 0) return -1; // Every exit leads to an unknown room or is locked
+
+            int pick = random.nextInt(open);
+            for (int exit = 0; exit < exitCount; exit++) {
+                if (isOpen(room, exit) && pick-- == 0) return exit;
+            }
+            return -1;
+        }
+
+        private int targetExit(Room room) {
+            RoomGraph graph = engine.getGraph();
+            int here = room.getId();
+            if (target != UNREACHABLE && target != here && pathLength > 0) {
+                return exitTo(room, path[--pathLength]); // Still on the way
+            }
+
+            boolean table = graph.getRoomCount() <= RoomGraph.MAX_ALL_PAIRS_ROOMS;
+            for (int attempt = 0; attempt < 16; attempt++) {
+                if (target == UNREACHABLE || target == here) {
+                    target = random.nextInt(graph.getRoomCount());
+                    pathLength = 0;
+                }
+                if (table) {
+                    // Small houses answer every step from the graph's table of shortest paths
+                    int next = graph.nextHop(here, target);
+                    int exit = next == UNREACHABLE ? -1 : exitTo(room, next);
+                    if (exit >= 0 && isOpen(room, exit)) return exit;
+                }
+                // Big houses search once per target and remember the way, as do small ones when a door is locked
+                if (planPath(here, false, target)) {
+                    return exitTo(room, path[--pathLength]);
+                }
+                target = UNREACHABLE; // Can't get there from here, pick another room
+            }
+            return -1;
+        }
+
+        private int exploreExit(Room room) {
+            // An unvisited room next door is always the nearest, and agents start looking at a random exit so
+            // they don't all follow the same route
+            Room[] exitRooms = room.getExitRooms();
+            int first = exitRooms.length == 0 ? 0 : random.nextInt(exitRooms.length);
+            for (int n = 0; n < exitRooms.length; n++) {
+                int i = (first + n) % exitRooms.length;
+                if (isOpen(room, i) && !session.hasVisited(exitRooms[i].getId())) {
+                    pathLength = 0;
+                    return i;
+                }
+            }
+
+            if (pathLength == 0 && !planPath(room.getId(), true, UNREACHABLE)) {
+                return -1; // Every reachable room has been visited
+            }
+            return exitTo(room, path[--pathLength]);
+        }
+
+        /**
+         * Checks whether the agent can go through an exit: it leads to a known room and isn't locked for them.
+         */
+        private boolean isOpen(Room room, int exit) {
+            return room.getExitRooms()[exit] != null && !locks.isLocked(session, room.getId(), exit);
+        }
+
+        /**
+         * Finds a shortest path with a breadth first search, and keeps it for the next moves.  Exits that are locked
+         * for the agent are left out.
+         *
+         * @param fromId      The ID of the room the agent is in.
+         * @param toUnvisited If true, the search stops at the nearest room the agent hasn't visited.
+         * @param targetId    Otherwise, the ID of the room the search stops at.
+         * @return False if there is no such room that can be reached.
+         */
+        private boolean planPath(int fromId, boolean toUnvisited, int targetId) {
+            SearchScratch search = scratch.get();
+            int stamp = search.nextStamp();
+            int head = 0;
+            int tail = 0;
+            search.queue[tail++] = fromId;
+            search.seen[fromId] = stamp;
+            RoomRegistry registry = engine.getRegistry();
+            while (head < tail) {
+                int roomId = search.queue[head++];
+                boolean found = toUnvisited ? !session.hasVisited(roomId) : roomId == targetId;
+                if (found && roomId != fromId) {
+                    pathLength = 0;
+                    for (int step = roomId; step != fromId; step = search.parent[step]) {
+                        if (pathLength == path.length) {
+                            path = Arrays.copyOf(path, Math.max(16, 2 * path.length));
+                        }
+                        path[pathLength++] = step;
+                    }
+                    return true;
+                }
+                Room room = registry.findById(roomId);
+                Room[] exitRooms = room.getExitRooms();
+                for (int i = 0; i < exitRooms.length; i++) {
+                    Room exitRoom = exitRooms[i];
+                    if (isOpen(room, i) && search.seen[exitRoom.getId()] != stamp) {
+                        search.seen[exitRoom.getId()] = stamp;
+                        search.parent[exitRoom.getId()] = roomId;
+                        search.queue[tail++] = exitRoom.getId();
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The arrays one thread uses for its agents' searches.  Rooms are marked as seen with a stamp that changes on
+     * every search, so the arrays never have to be cleared.
+     */
+    private static final class SearchScratch {
+        final int[] queue;
+        final int[] parent;
+        final int[] seen;
+        private int stamp;
+
+        SearchScratch(int roomCount) {
+            queue = new int[roomCount];
+            parent = new int[roomCount];
+            seen = new int[roomCount];
+        }
+
+        int nextStamp() {
+            if (++stamp == 0) { // Wrapped around, so old stamps could match again
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * The main method to run a simulation.  The house is the one {@link GameEngine#loadDefault()} loads, so a
+     * generated house can be used through the same system properties.
+     *
+     * @param args Command-line arguments: the policy (random-walk by default), the number of agents (the number of
+     *             cores by default), the most moves per agent (10000 by default), and --ui to play the real game
+     *             window with one agent instead.  The haunted.simThreads and haunted.simSeed system properties set
+     *             the number of threads and the seed.
+     * @throws Exception If the house can't be loaded or the simulation fails.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        boolean ui = arguments.remove("--ui");
+        Policy policy = arguments.size() > 0
+                ? Policy.valueOf(arguments.get(0).toUpperCase(Locale.ROOT).replace('-', '_'))
+                : Policy.RANDOM_WALK;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int agents = arguments.size() > 1 ? Integer.parseInt(arguments.get(1)) : cores;
+        int movesPerAgent = arguments.size() > 2 ? Integer.parseInt(arguments.get(2)) : 10_000;
+        long seed = Long.getLong("haunted.simSeed", 1112);
+
+        if (ui) {
+            SimulationWindow.run(policy, movesPerAgent, seed);
+            return;
+        }
+
+        GameEngine engine = GameEngine.loadDefault();
+        SimulationRunner runner = new SimulationRunner(engine, policy, seed);
+        runner.run(agents, movesPerAgent, Integer.getInteger("haunted.simThreads", cores));
+        runner.printReport(System.out);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+This is the SimulationWindow class for the Haunted House game.  It lets the simulation runner play the real game
+window, so the time the JavaFX side of a move takes can be measured without anyone at the keyboard.
+*/
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.ComboBox;
+import javafx.stage.Window;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The SimulationWindow class launches {@link Main} and plays it with one {@link SimulationRunner} agent, choosing
+ * each exit in the window's exit selector on the JavaFX Application Thread, as a click would.  When the Monocle
+ * headless platform is on the class path, which the {@code simulate} Maven profile adds, the window is run without
+ * a screen.
+ */
+public class SimulationWindow {
+    private static final long FX_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Launches the game window and plays it.  Saves and metrics go to a temporary folder, so the player's own saved
+     * game is left alone and the window starts in the start room.  The report is printed, followed by the game
+     * window's own timing of every phase of a room change.
+     *
+     * @param policy      The rule the agent uses to choose its exits.
+     * @param movesToMake The most moves to make.
+     * @param seed        The seed of the agent's random choices.
+     * @throws Exception If the game window doesn't start or stops responding.
+     */
+    public static void run(SimulationRunner.Policy policy, int movesToMake, long seed) throws Exception {
+        Path temporary = Files.createTempDirectory("haunted-simulation");
+        System.setProperty("haunted.saveDir", temporary.resolve("saves").toString());
+        System.setProperty("haunted.metricsFile", temporary.resolve("metrics.csv").toString());
+        boolean monocle = isOnClassPath("com.sun.glass.ui.monocle.MonocleApplication");
+        if (System.getProperty("glass.platform") == null && monocle) { // Run without a screen
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+        }
+
+        Thread launcher = new Thread(() -> Application.launch(Main.class), "javafx-launcher");
+        launcher.setDaemon(true);
+        launcher.start();
+        ComboBox<?> exitSelector = waitForExitSelector(launcher);
+
+        SimulationRunner runner = new SimulationRunner(GameEngine.loadDefault(), policy, seed);
+        runner.runMirrored(movesToMake, exit -> onFxThread(() -> {
+            long before = System.nanoTime();
+            exitSelector.getSelectionModel().select(exit);
+            return System.nanoTime() - before;
+        }));
+        runner.printReport(System.out);
+        printWindowMetrics();
+        Platform.exit();
+    }
+
+    /**
+     * Waits for the game window to show its exit selector.
+     *
+     * @param launcher The thread that launched JavaFX.
+     * @return The exit selector.
+     * @throws Exception If the window doesn't open in time or JavaFX fails to start.
+     */
+    private static ComboBox<?> waitForExitSelector(Thread launcher) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(FX_TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            if (!launcher.isAlive()) {
+                throw new IllegalStateException("JavaFX couldn't start");
+            }
+            try {
+                ComboBox<?> exitSelector = onFxThread(SimulationWindow::findExitSelector);
+                if (exitSelector != null) {
+                    return exitSelector;
+                }
+            } catch (IllegalStateException e) {
+                // The toolkit isn't running yet
+            }
+        }
+        throw new TimeoutException("The game window didn't open");
+    }
+
+    /**
+     * Finds the exit selector in the game window, once the house has loaded and the player can use it.
+     *
+     * @return The exit selector, or null if the game window isn't showing or the house is still loading.
+     */
+    private static ComboBox<?> findExitSelector() {
+        for (Window window : Window.getWindows()) {
+            Node node = window.getScene() == null ? null : window.getScene().lookup("#" + Main.EXIT_SELECTOR_ID);
+            if (node instanceof ComboBox && !node.isDisabled()) {
+                return (ComboBox<?>) node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs a task on the JavaFX Application Thread and waits for its result.
+     */
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        try {
+            return future.get(FX_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static boolean isOnClassPath(String className) {
+        try {
+            Class.forName(className, false, SimulationWindow.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Prints the game window's own timing of every phase of a room change, which it publishes over JMX.
+     */
+    private static void printWindowMetrics() {
+        try {
+            String[] summaries = (String[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(TransitionMetrics.OBJECT_NAME), "PhaseSummaries");
+            System.out.println("Game window phases:");
+            for (String summary : summaries) {
+                System.out.println("  " + summary);
+            }
+        } catch (JMException e) {
+            System.err.println("Couldn't read the game window's metrics: " + e.getMessage());
+        }
+    }
+}
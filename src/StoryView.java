@@ -0,0 +1,288 @@
+/*
+This is the StoryView class for the Haunted House game.  It shows the story text under the game window, writing each
+room's description out a few letters at a time and keeping the text of the last rooms visited to scroll back through.
+*/
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.input.MouseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The StoryView class shows the story as a list of paragraphs in a {@link ListView}, which only makes cells for the
+ * paragraphs that are on screen, so the cost of layout depends on the size of the view and not on the length of the
+ * text.  A new room's description isn't copied into the view in one go: one {@link AnimationTimer} takes it a
+ * paragraph at a time and, if the typewriter is on, reveals the paragraph being written a few letters per frame, so
+ * only that one cell is laid out again.  When the typewriter is off, a few paragraphs are added on each frame so
+ * very long descriptions don't hold up a frame.  Clicking the text writes the rest of the room out at once.
+ * Messages, such as what happened when the player opened something, are added after the room's description.
+ * <p>
+ * Only the last {@code historyLimit} paragraphs are kept, so scrolling back through earlier rooms doesn't grow
+ * without limit.
+ */
+public class StoryView {
+    private static final int MAX_PARAGRAPH_CHARS = 800; // Longer paragraphs are split at a space, to keep cells small
+    private static final int PARAGRAPHS_PER_FRAME = 8; // When the text isn't typed out letter by letter
+    private static final String TEXT_STYLE = "-fx-text-fill: yellow; -fx-font-size: 13px;";
+    private static final String HEADING_STYLE = "-fx-text-fill: white; -fx-font-size: 14px; -fx-font-weight: bold;";
+    private static final String MESSAGE_STYLE =
+            "-fx-text-fill: lightgray; -fx-font-size: 13px; -fx-font-style: italic;";
+
+    private final ListView<Paragraph> view = new ListView<>();
+    private final ObservableList<Paragraph> paragraphs = view.getItems();
+    private final int historyLimit;
+    private final double charsPerSecond;
+    private final AnimationTimer writer;
+
+    // The description being written out
+    private String pending = "";
+    private int pendingPosition;
+    private Paragraph typing; // The paragraph being revealed, or null between paragraphs
+    private final List<String> messages = new ArrayList<>(); // Shown once the description has been written
+    private boolean skipping; // The player clicked to see the rest of the room at once
+    private double revealCredit; // Letters owed to the typewriter since the last frame
+    private long lastFrame;
+
+    /**
+     * Constructs a new StoryView.
+     *
+     * @param historyLimit   The most paragraphs to keep, including the ones of earlier rooms.
+     * @param charsPerSecond How fast the typewriter writes, or zero to write whole paragraphs at once.
+     */
+    public StoryView(int historyLimit, double charsPerSecond) {
+        this.historyLimit = Math.max(1, historyLimit);
+        this.charsPerSecond = charsPerSecond;
+
+        view.setSelectionModel(null); // The story is only for reading
+        view.setFocusTraversable(false);
+        view.setStyle("-fx-background-color: black; -fx-control-inner-background: black;");
+        view.setCellFactory(list -> new ParagraphCell(list));
+        view.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> skip());
+
+        writer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                write(now);
+            }
+        };
+    }
+
+    /**
+     * Gets the node to put in the scene.
+     *
+     * @return The list of paragraphs.
+     */
+    public ListView<?> getNode() {
+        return view;
+    }
+
+    /**
+     * Starts writing out a room's description under a heading with the room's name.  Whatever was left of the last
+     * room's description is dropped, and the paragraph being typed is shown in full.
+     *
+     * @param heading     The room's name.
+     * @param description The room's description, with one paragraph per line.
+     */
+    public void showRoom(String heading, String description) {
+        if (typing != null) {
+            typing.reveal(typing.text.length());
+            typing = null;
+        }
+        pending = description == null ? "" : description;
+        pendingPosition = 0;
+        messages.clear();
+        skipping = false;
+        revealCredit = 0;
+        lastFrame = 0;
+
+        append(new Paragraph(heading, HEADING_STYLE));
+        view.scrollTo(paragraphs.size() - 1);
+        writer.start();
+    }
+
+    /**
+     * Adds a message for the player under the current room's description.  If the description is still being
+     * written, the rest of it is written out at once and the message follows it.
+     *
+     * @param message The message to show.
+     */
+    public void showMessage(String message) {
+        if (typing == null && pendingPosition >= pending.length()) {
+            append(new Paragraph(message, MESSAGE_STYLE));
+            return;
+        }
+        messages.add(message);
+        skip();
+    }
+
+    /**
+     * Writes the rest of the current room's description out at once, over the next few frames.
+     */
+    public void skip() {
+        if (typing != null) {
+            typing.reveal(typing.text.length());
+            typing = null;
+        }
+        skipping = true;
+    }
+
+    /**
+     * Writes the next part of the description.  This is called by the animation timer once per frame.
+     *
+     * @param now The time of the frame in nanoseconds.
+     */
+    private void write(long now) {
+        if (charsPerSecond <= 0 || skipping) {
+            for (int i = 0; i < PARAGRAPHS_PER_FRAME; i++) {
+                String text = nextParagraph();
+                if (text == null) {
+                    finish();
+                    return;
+                }
+                Paragraph paragraph = new Paragraph(text, TEXT_STYLE);
+                paragraph.reveal(text.length());
+                append(paragraph);
+            }
+            return;
+        }
+
+        // The typewriter is paid in letters for the time since the last frame, so dropped frames don't slow it down
+        revealCredit += lastFrame == 0 ? 1 : charsPerSecond * (now - lastFrame) / 1e9;
+        lastFrame = now;
+        while (revealCredit >= 1) {
+            if (typing == null) {
+                String text = nextParagraph();
+                if (text == null) {
+                    finish();
+                    return;
+                }
+                typing = new Paragraph(text, TEXT_STYLE);
+                append(typing);
+            }
+            int letters = Math.min((int) revealCredit, typing.text.length() - typing.shownLength);
+            typing.reveal(typing.shownLength + letters);
+            revealCredit -= letters;
+            if (typing.shownLength == typing.text.length()) {
+                typing = null;
+            }
+        }
+    }
+
+    /**
+     * Shows the messages that were waiting for the description, and stops the timer until the next room.
+     */
+    private void finish() {
+        for (String message : messages) {
+            append(new Paragraph(message, MESSAGE_STYLE));
+        }
+        messages.clear();
+        writer.stop();
+    }
+
+    /**
+     * Takes the next paragraph off the description being written, skipping blank lines.
+     *
+     * @return The paragraph's text, or null if the whole description has been written.
+     */
+    private String nextParagraph() {
+        while (pendingPosition < pending.length()) {
+            int end = pending.indexOf('\n', pendingPosition);
+            if (end < 0) {
+                end = pending.length();
+            }
+            int start = pendingPosition;
+            while (start < end && Character.isWhitespace(pending.charAt(start))) {
+                start++; // The indent at the start of the paragraph
+            }
+            if (end - start > MAX_PARAGRAPH_CHARS) {
+                int split = pending.lastIndexOf(' ', start + MAX_PARAGRAPH_CHARS);
+                end = split > start ? split : start + MAX_PARAGRAPH_CHARS;
+                pendingPosition = end;
+            } else {
+                pendingPosition = end + 1;
+            }
+            String text = pending.substring(start, end).strip();
+            if (!text.isEmpty()) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a paragraph to the end of the story, dropping the oldest ones over the history limit, and scrolls to it.
+     */
+    private void append(Paragraph paragraph) {
+        paragraphs.add(paragraph);
+        int excess = paragraphs.size() - historyLimit;
+        if (excess > 0) {
+            paragraphs.remove(0, excess);
+        }
+        if (!HEADING_STYLE.equals(paragraph.style)) {
+            view.scrollTo(paragraphs.size() - 1);
+        }
+    }
+
+    /**
+     * One paragraph of the story, and how much of it has been revealed.
+     */
+    private static final class Paragraph {
+        private final String text;
+        private final String style;
+        private final StringProperty shown;
+        private int shownLength;
+
+        /**
+         * Constructs a paragraph.  Body text starts hidden, for the typewriter; headings and messages are shown at
+         * once.
+         */
+        private Paragraph(String text, String style) {
+            boolean whole = !TEXT_STYLE.equals(style);
+            this.text = text;
+            this.style = style;
+            this.shownLength = whole ? text.length() : 0;
+            this.shown = new SimpleStringProperty(whole ? text : "");
+        }
+
+        private void reveal(int length) {
+            shownLength = length;
+            shown.set(text.substring(0, length));
+        }
+    }
+
+    /**
+     * A cell showing one paragraph, wrapped to the width of the view.  It follows the paragraph's revealed text, so
+     * the typewriter only updates the one label.
+     */
+    private static final class ParagraphCell extends ListCell<Paragraph> {
+        private final Label label = new Label();
+
+        private ParagraphCell(ListView<Paragraph> list) {
+            label.setWrapText(true);
+            label.maxWidthProperty().bind(list.widthProperty().subtract(30)); // Leaves room for the scroll bar
+            setPrefWidth(0); // Wrap instead of scrolling sideways
+            setStyle("-fx-background-color: black; -fx-padding: 2 6 4 6;");
+        }
+
+        @Override
+        protected void updateItem(Paragraph paragraph, boolean empty) {
+            super.updateItem(paragraph, empty);
+            label.textProperty().unbind();
+            if (empty || paragraph == null) {
+                label.setText(null);
+                setGraphic(null);
+                return;
+            }
+            label.textProperty().bind(paragraph.shown);
+            label.setStyle(paragraph.style);
+            setGraphic(label);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+This is the TextureAtlas class for the Haunted House game.  It reads the index written by AtlasBuilder and shows
+images as viewports into the shared atlas pages, so many images share a single decoded page.
+*/
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The TextureAtlas class maps an image path, such as {@link Room#getImagePath()}, to a region of an atlas page.
+ * Images that aren't in the atlas, or every image if no atlas has been built, are shown directly instead.
+ */
+public class TextureAtlas {
+    public static final String ATLAS_DIR = "src/resources/atlas";
+    public static final String INDEX_FILE = "index.jsonl";
+    /** The width the room images are shown at in the game window. */
+    public static final int GAME_WINDOW_WIDTH = 1300;
+
+    private final Map<String, Region> regions;
+
+    private TextureAtlas(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Loads the atlas built for a window width.  If it hasn't been built, or can't be read, an empty atlas is
+     * returned and every image is shown directly.
+     *
+     * @param atlasDir The folder the atlases were built in.
+     * @param width    The width of the game window.
+     * @return The atlas.
+     */
+    public static TextureAtlas load(String atlasDir, int width) {
+        Path index = Path.of(atlasDir, String.valueOf(width), INDEX_FILE);
+        Map<String, Region> regions = new HashMap<>();
+        if (!Files.exists(index)) {
+            return new TextureAtlas(regions);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                Map<String, Object> fields = JsonLine.parseObject(line);
+                Rectangle2D viewport = new Rectangle2D(number(fields, "x"), number(fields, "y"),
+                        number(fields, "width"), number(fields, "height"));
+                regions.put((String) fields.get("image"), new Region((String) fields.get("page"), viewport));
+            }
+        } catch (IOException | IllegalArgumentException | ClassCastException e) {
+            System.err.println("Couldn't read the texture atlas " + index + ", using separate images: " + e);
+            regions.clear();
+        }
+        return new TextureAtlas(regions);
+    }
+
+    private static double number(Map<String, Object> fields, String key) {
+        return ((Number) fields.get(key)).doubleValue();
+    }
+
+    /**
+     * Shows an image in an ImageView, either as a viewport into its atlas page or as the image itself.
+     *
+     * @param view       The ImageView to show the image in.
+     * @param imagePath  The URL of the image.
+     * @param imageCache The cache the atlas page or image is decoded through.
+     */
+    public void apply(ImageView view, String imagePath, ImageCache imageCache) {
+        Region region = regions.get(imagePath);
+        if (region == null) {
+            view.setImage(imageCache.get(imagePath));
+            view.setViewport(null);
+        } else {
+            view.setImage(imageCache.get(region.page));
+            view.setViewport(region.viewport);
+        }
+    }
+
+    /**
+     * Gets the URL of the image that has to be decoded to show an image: its atlas page, or the image itself.
+     *
+     * @param imagePath The URL of the image.
+     * @return The URL to decode.
+     */
+    public String sourceOf(String imagePath) {
+        Region region = regions.get(imagePath);
+        return region == null ? imagePath : region.page;
+    }
+
+    /**
+     * Gets the number of images in the atlas.
+     *
+     * @return The number of images, 0 if no atlas was loaded.
+     */
+    public int size() {
+        return regions.size();
+    }
+
+    /**
+     * Where one image lives: its atlas page and the rectangle it covers on that page.
+     */
+    private static final class Region {
+        private final String page;
+        private final Rectangle2D viewport;
+
+        Region(String page, Rectangle2D viewport) {
+            this.page = page;
+            this.viewport = viewport;
+        }
+    }
+}
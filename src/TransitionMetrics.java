@@ -0,0 +1,233 @@
+/*
+This is the TransitionMetrics class for the Haunted House game.  It times every phase of moving from one room to
+another, publishes the numbers over JMX, and writes them to a CSV file every so often.
+*/
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TransitionMetrics class keeps a {@link LatencyHistogram} for every {@link Phase} of a room transition.
+ * Timing a phase is done with {@link #record(Phase, long)}, which also returns the current time so phases can be
+ * timed back to back:
+ * <pre>
+ * long time = System.nanoTime();
+ * ...
+ * time = metrics.record(Phase.TEXT_UPDATE, time);
+ * </pre>
+ */
+public class TransitionMetrics implements TransitionMetricsMBean {
+
+    /**
+     * The phases of a room transition that are timed.
+     */
+    public enum Phase {
+        /** Finding the room behind the chosen exit and moving the session there. */
+        ROOM_LOOKUP,
+        /** Showing the room's description. */
+        TEXT_UPDATE,
+        /** Getting the room's image and putting it in the game window. */
+        IMAGE_LOAD,
+        /** Starting the fade transition of the room image. */
+        TRANSITION_START,
+        /** Filling the exit combo box with the room's exits. */
+        EXIT_LIST,
+        /** Starting the room's special effects, and preloading and audio work. */
+        EFFECTS,
+        /** Everything from showing the description to starting the effects. */
+        TOTAL,
+        /** The time between two JavaFX pulses while a room fades in. */
+        FX_PULSE
+    }
+
+    public static final String OBJECT_NAME = "hauntedhouse:type=TransitionMetrics";
+
+    private static final String CSV_HEADER = "timestamp,phase,count,mean_us,p50_us,p90_us,p99_us,max_us";
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Constructs a new TransitionMetrics with an empty histogram for every phase.
+     */
+    public TransitionMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records how long a phase took.
+     *
+     * @param phase      The phase that finished.
+     * @param startNanos The {@link System#nanoTime()} when the phase started.
+     * @return The {@link System#nanoTime()} now, which is when the next phase starts.
+     */
+    public long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        histograms.get(phase).record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Records a duration for a phase that was timed some other way.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordNanos(Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    /**
+     * Records frames that were missed because a pulse came late.
+     *
+     * @param frames The number of missed frames.
+     */
+    public void addDroppedFrames(long frames) {
+        droppedFrames.addAndGet(frames);
+    }
+
+    /**
+     * Gets the histogram of a phase.
+     *
+     * @param phase The phase.
+     * @return The histogram of the phase's durations.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, so they show up in JConsole and other JMX tools.
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Couldn't register the transition metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts appending every phase's numbers to a CSV file on a background thread.
+     *
+     * @param file            The CSV file to append to.  A header is written if the file is new.
+     * @param intervalSeconds How often to write, in seconds.
+     */
+    public void startCsvDump(Path file, long intervalSeconds) {
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dumpCsv(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Appends one line per phase to a CSV file.
+     *
+     * @param file The CSV file to append to.
+     */
+    public void dumpCsv(Path file) {
+        boolean newFile = !Files.exists(file);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            String timestamp = Instant.now().toString();
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = histograms.get(phase);
+                writer.write(String.format("%s,%s,%d,%.1f,%d,%d,%d,%d%n", timestamp, phase,
+                        histogram.getCount(), histogram.getMean() / 1000.0, micros(histogram.percentile(50)),
+                        micros(histogram.percentile(90)), micros(histogram.percentile(99)),
+                        micros(histogram.getMax())));
+            }
+        } catch (IOException e) {
+            System.err.println("Couldn't write the transition metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the CSV dump, writing one last set of lines.
+     *
+     * @param file The CSV file the dump was writing to.
+     */
+    public void stopCsvDump(Path file) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumpCsv(file);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    @Override
+    public long getTransitionCount() {
+        return histograms.get(Phase.TOTAL).getCount();
+    }
+
+    @Override
+    public long getTransitionP50Micros() {
+        return micros(histograms.get(Phase.TOTAL).percentile(50));
+    }
+
+    @Override
+    public long getTransitionP99Micros() {
+        return micros(histograms.get(Phase.TOTAL).percentile(99));
+    }
+
+    @Override
+    public long getTransitionMaxMicros() {
+        return micros(histograms.get(Phase.TOTAL).getMax());
+    }
+
+    @Override
+    public long getPulseP99Micros() {
+        return micros(histograms.get(Phase.FX_PULSE).percentile(99));
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    @Override
+    public String[] getPhaseSummaries() {
+        String[] summaries = new String[Phase.values().length];
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            summaries[phase.ordinal()] = String.format("%s: count=%d p50=%dus p99=%dus max=%dus", phase,
+                    histogram.getCount(), micros(histogram.percentile(50)), micros(histogram.percentile(99)),
+                    micros(histogram.getMax()));
+        }
+        return summaries;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        droppedFrames.set(0);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+This is the TransitionMetricsMBean interface for the Haunted House game.  It is the management interface JMX tools
+like JConsole use to read the room transition metrics.
+*/
+
+/**
+ * The TransitionMetricsMBean interface exposes the room transition metrics over JMX.  Times are in microseconds.
+ */
+public interface TransitionMetricsMBean {
+
+    /**
+     * Gets the number of room transitions measured.
+     *
+     * @return The number of transitions.
+     */
+    long getTransitionCount();
+
+    /**
+     * Gets the median time to show a new room.
+     *
+     * @return The 50th percentile of the whole transition, in microseconds.
+     */
+    long getTransitionP50Micros();
+
+    /**
+     * Gets the time under which 99% of room changes are shown.
+     *
+     * @return The 99th percentile of the whole transition, in microseconds.
+     */
+    long getTransitionP99Micros();
+
+    /**
+     * Gets the slowest room change.
+     *
+     * @return The longest transition, in microseconds.
+     */
+    long getTransitionMaxMicros();
+
+    /**
+     * Gets the time under which 99% of JavaFX pulses arrived during room fade transitions.
+     *
+     * @return The 99th percentile of the pulse interval, in microseconds.
+     */
+    long getPulseP99Micros();
+
+    /**
+     * Gets the number of frames missed during room fade transitions.
+     *
+     * @return The number of dropped frames.
+     */
+    long getDroppedFrames();
+
+    /**
+     * Gets one line per phase of a transition with its count and percentiles.
+     *
+     * @return The summary of every phase.
+     */
+    String[] getPhaseSummaries();
+
+    /**
+     * Forgets everything measured so far.
+     */
+    void reset();
+}
@@ -0,0 +1,121 @@
+/*
+This is the Trigger class for the Haunted House game.  It describes one special effect a room can set off, and the
+conditions under which it does, so new effects can be added to the room data instead of the code.
+*/
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The Trigger class is an immutable rule attached to a room: when a player enters the room, the trigger's effect
+ * fires if all of its conditions hold.  The conditions are
+ * <ul>
+ *     <li>a chance, so the effect only fires on some visits,</li>
+ *     <li>first visit only, so the effect fires the first time the player enters the room and never again, and</li>
+ *     <li>a required effect, which the player must already have seen somewhere in the house.</li>
+ * </ul>
+ * In the rooms data file, triggers are a list of objects in a room's {@code "triggers"} field:
+ * <pre>
+ * "triggers":[{"effect":"APPARITION","argument":"GHOST","chance":0.5,"firstVisitOnly":true,"requires":"LIGHTS_FLICKER"}]
+ * </pre>
+ * Only {@code "effect"} is required.
+ */
+public final class Trigger {
+    private final RoomEffect effect;
+    private final String argument;
+    private final double chance;
+    private final boolean firstVisitOnly;
+    private final RoomEffect requires;
+
+    /**
+     * Constructs a new Trigger that always fires.
+     *
+     * @param effect   The effect to set off.
+     * @param argument What the effect acts on, such as the kind of apparition or the URL of a sound, or null.
+     */
+    public Trigger(RoomEffect effect, String argument) {
+        this(effect, argument, 1.0, false, null);
+    }
+
+    /**
+     * Constructs a new Trigger.
+     *
+     * @param effect         The effect to set off.
+     * @param argument       What the effect acts on, such as the kind of apparition or the URL of a sound, or null.
+     * @param chance         The chance of the effect firing on each visit, from 0 to 1.
+     * @param firstVisitOnly True if the effect only fires the first time the player enters the room.
+     * @param requires       An effect the player must already have seen for this one to fire, or null.
+     * @throws IllegalArgumentException If the effect is missing or NONE, or the chance is not between 0 and 1.
+     */
+    public Trigger(RoomEffect effect, String argument, double chance, boolean firstVisitOnly, RoomEffect requires) {
+        if (effect == null || effect == RoomEffect.NONE) {
+            throw new IllegalArgumentException("A trigger needs an effect");
+        }
+        if (!(chance >= 0 && chance <= 1)) {
+            throw new IllegalArgumentException("A trigger's chance must be between 0 and 1, not " + chance);
+        }
+        this.effect = effect;
+        this.argument = argument;
+        this.chance = chance;
+        this.firstVisitOnly = firstVisitOnly;
+        this.requires = requires;
+    }
+
+    /**
+     * Checks whether the trigger fires for a player entering its room.  This must be called before the session
+     * records the visit.
+     *
+     * @param session The session of the player entering the room.
+     * @param roomId  The ID of the room being entered.
+     * @return True if the effect should play.
+     */
+    boolean shouldFire(GameSession session, int roomId) {
+        if (firstVisitOnly && session.hasVisited(roomId)) return false;
+        if (requires != null && !session.hasTriggered(requires)) return false;
+        return chance >= 1 || ThreadLocalRandom.current().nextDouble() < chance;
+    }
+
+    /**
+     * Gets the effect the trigger sets off.
+     *
+     * @return The effect.
+     */
+    public RoomEffect getEffect() {
+        return effect;
+    }
+
+    /**
+     * Gets what the effect acts on, such as the name of an apparition type or the URL of a sound.
+     *
+     * @return The argument, or null if the effect doesn't need one.
+     */
+    public String getArgument() {
+        return argument;
+    }
+
+    /**
+     * Gets the chance of the effect firing on each visit.
+     *
+     * @return The chance, from 0 to 1.
+     */
+    public double getChance() {
+        return chance;
+    }
+
+    /**
+     * Checks whether the effect only fires the first time the player enters the room.
+     *
+     * @return True if the trigger is for the first visit only.
+     */
+    public boolean isFirstVisitOnly() {
+        return firstVisitOnly;
+    }
+
+    /**
+     * Gets the effect the player must already have seen for this one to fire.
+     *
+     * @return The required effect, or null if there is none.
+     */
+    public RoomEffect getRequires() {
+        return requires;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+This is the TriggerTable class for the Haunted House game.  It works out, once when the house is loaded, which
+triggers belong to which room, so entering a room only ever looks at that room's own triggers.
+*/
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The TriggerTable class holds the triggers of every room by room ID, and the RoomStates that moves return.  Every
+ * combination of fired triggers in a room has its own shared RoomState, made the first time that combination
+ * fires, so the cost of entering a room is one check per trigger of that room and no allocation.  Rooms without
+ * triggers only have the one RoomState.
+ */
+public class TriggerTable {
+    public static final int MAX_TRIGGERS_PER_ROOM = 8; // Keeps the combinations per room to 256
+
+    private final RoomState[] baseStates; // By room ID, where no triggers fired
+    private final Trigger[][] triggers; // By room ID, null for rooms without triggers
+    private final AtomicReferenceArray<RoomState>[] firedStates; // By room ID, then by mask of fired triggers
+
+    /**
+     * Constructs a new TriggerTable from the triggers of every room in a house.
+     *
+     * @param registry The registry holding every room of the house.
+     * @throws IllegalArgumentException If a room has more than {@link #MAX_TRIGGERS_PER_ROOM} triggers.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TriggerTable(RoomRegistry registry) {
+        int roomCount = registry.size();
+        this.baseStates = new RoomState[roomCount];
+        this.triggers = new Trigger[roomCount][];
+        this.firedStates = new AtomicReferenceArray[roomCount];
+        for (int id = 0; id < roomCount; id++) {
+            Room room = registry.findById(id);
+            baseStates[id] = new RoomState(room);
+            Trigger[] roomTriggers = room.getTriggers();
+            if (roomTriggers.length > MAX_TRIGGERS_PER_ROOM) {
+                throw new IllegalArgumentException(room.getName() + " has more than " + MAX_TRIGGERS_PER_ROOM
+                        + " triggers");
+            }
+            if (roomTriggers.length > 0) {
+                triggers[id] = roomTriggers;
+                firedStates[id] = new AtomicReferenceArray<>(1 << roomTriggers.length);
+            }
+        }
+    }
+
+    /**
+     * Gets the state of a room where no triggers fired, such as when a saved game is restored.
+     *
+     * @param roomId The ID of the room.
+     * @return The room's base state.
+     */
+    public RoomState baseState(int roomId) {
+        return baseStates[roomId];
+    }
+
+    /**
+     * Checks every trigger of a room for a player entering it.  This must be called before the session records
+     * the visit, so first visit triggers can tell it is the first visit.
+     *
+     * @param roomId  The ID of the room being entered.
+     * @param session The session of the player entering the room.
+     * @return The state of the room with the triggers that fired.
+     */
+    public RoomState enter(int roomId, GameSession session) {
+        Trigger[] roomTriggers = triggers[roomId];
+        if (roomTriggers == null) return baseStates[roomId];
+
+        int mask = 0;
+        for (int i = 0; i < roomTriggers.length; i++) {
+            if (roomTriggers[i].shouldFire(session, roomId)) {
+                mask |= 1 << i;
+            }
+        }
+        if (mask == 0) return baseStates[roomId];
+
+        RoomState state = firedStates[roomId].get(mask);
+        if (state == null) {
+            Trigger[] fired = new Trigger[Integer.bitCount(mask)];
+            for (int i = 0, n = 0; i < roomTriggers.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    fired[n++] = roomTriggers[i];
+                }
+            }
+            // If two threads race, both states are the same, so it doesn't matter which one is kept
+            firedStates[roomId].compareAndSet(mask, null, new RoomState(baseStates[roomId].getRoom(), fired));
+            state = firedStates[roomId].get(mask);
+        }
+        return state;
+    }
+}
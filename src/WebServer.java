@@ -0,0 +1,630 @@
+/*
+This is the WebServer class for the Haunted House game.  It lets players explore the house from a web browser or a
+terminal, over HTTP on the local machine, without the JavaFX window.
+*/
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+/**
+ * The WebServer class serves the game over HTTP with the JDK's built-in {@link HttpServer}, on the loopback
+ * interface.  Every page is the room the player is in, with buttons for everything they can do there:
+ * <pre>
+ * GET  /                 the room, as HTML with its image
+ * POST /go/2             go through the room's third exit
+ * POST /take/Rusty+Key   take an item (and /open/... a fixture, /use/... a carried item)
+ * GET  /text/, POST /text/go/2 ...   the same, as plain text without images, for terminals and slow connections
+ * GET  /image/Name.png   a room's image
+ * </pre>
+ * Looking at a page never changes the game, so reloading it, going back, or a crawler following links doesn't move
+ * anyone.  Commands are POSTed and answered with a 303 redirect back to the room's page, which shows what happened
+ * once.
+ * <p>
+ * Players are told apart by a session cookie holding a {@link SessionTokens} token, which can't be guessed from
+ * another player's.  A session is only started by looking at the room's page or by a command, and sessions are saved
+ * like the {@link GameServer}'s, so they can carry on after the server restarts, and are ended the same way once
+ * nobody has played them for a while.  Requests for the same session are handled one at a time.  No more than
+ * {@code haunted.webSessionsPerMinute} new sessions (60 by default) are started in a minute; past that, a request
+ * without a session is told to come back later, so a client that never keeps its cookie can't fill the save folder.
+ * <p>
+ * Most of a page is the same for every player in the same room: its name, description, image and exits.  That part is
+ * encoded to UTF-8 once per room, the first time the room is shown, and written straight from the cached bytes on
+ * every later visit.  Only the few lines about the player, what happened, what they can see and what they carry, are
+ * encoded per request.  Images are read once, and served with an ETag and a long cache lifetime, so a browser that
+ * has seen an image before is answered with an empty 304.
+ */
+public class WebServer {
+    private static final int DEFAULT_PORT = 4080;
+    private static final String DEFAULT_SAVE_DIR = "saves/web";
+    private static final String SESSION_COOKIE = "haunted_session";
+    private static final String TEXT_PREFIX = "/text";
+    private static final String IMAGE_PREFIX = "/image/";
+    private static final String IMAGE_CACHE_CONTROL = "public, max-age=86400";
+    private static final long SESSION_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final GameEngine engine;
+    private final int port;
+    private final SessionTokens tokens;
+    private final AtomicLong nextSessionId;
+    private final Map<Long, List<String>> notices = new ConcurrentHashMap<>(); // What happened, until it's shown
+    private final int maxNewSessions = Integer.getInteger("haunted.webSessionsPerMinute", 60);
+    private long sessionWindowStart = System.nanoTime();
+    private int sessionsInWindow; // New sessions started since sessionWindowStart
+    private final AtomicReferenceArray<byte[]> htmlRooms; // The shared part of each room's page, by room ID
+    private final AtomicReferenceArray<byte[]> textRooms;
+    private final Map<String, String> imageUrls = new ConcurrentHashMap<>(); // By file name, only the house's images
+    private final Map<String, Asset> images = new ConcurrentHashMap<>(); // Read on first request
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a new WebServer.  New sessions are numbered after any sessions the engine already has.
+     *
+     * @param engine The game engine shared by every player.
+     * @param port   The port to listen on.
+     * @param tokens Signs the session cookies.
+     */
+    public WebServer(GameEngine engine, int port, SessionTokens tokens) {
+        this.engine = engine;
+        this.port = port;
+        this.tokens = tokens;
+        engine.addSessionEndListener(notices::remove);
+        this.nextSessionId = new AtomicLong(Math.max(1, engine.getMaxSessionId() + 1));
+        RoomRegistry registry = engine.getRegistry();
+        this.htmlRooms = new AtomicReferenceArray<>(registry.size());
+        this.textRooms = new AtomicReferenceArray<>(registry.size());
+        for (int id = 0; id < registry.size(); id++) {
+            String imagePath = registry.findById(id).getImagePath();
+            if (imagePath != null) {
+                imageUrls.putIfAbsent(fileNameOf(imagePath), imagePath);
+            }
+        }
+    }
+
+    /**
+     * Starts serving on a pool of player threads.  This method returns once the server is listening.
+     *
+     * @throws IOException If the port can't be opened.
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        executor = GameServer.newPlayerExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::serve);
+        server.start();
+        System.out.println("Haunted House web server listening on http://" + server.getAddress().getHostString()
+                + ":" + server.getAddress().getPort() + "/");
+    }
+
+    /**
+     * Stops the server, letting requests in progress finish for up to a second.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers one request.
+     *
+     * @param exchange The request and its response.
+     * @throws IOException If the response can't be written.
+     */
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            boolean get = "GET".equals(method);
+            if (get && path.startsWith(IMAGE_PREFIX)) {
+                serveImage(exchange, path.substring(IMAGE_PREFIX.length()));
+                return;
+            }
+
+            boolean text = path.equals(TEXT_PREFIX) || path.startsWith(TEXT_PREFIX + "/");
+            if (text) {
+                path = path.substring(TEXT_PREFIX.length());
+            }
+            boolean page = path.isEmpty() || path.equals("/");
+            if (get && page) {
+                servePage(exchange, text);
+            } else if ("POST".equals(method) && !page) {
+                runCommand(exchange, path, text);
+            } else if (get || "POST".equals(method)) {
+                exchange.sendResponseHeaders(404, -1); // Nothing to see, and no session started for it
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    /**
+     * Answers with the room the player is in, and anything that happened since their last look.
+     *
+     * @param exchange The request and its response.
+     * @param text     True to answer in plain text, false for HTML.
+     * @throws IOException If the response can't be written.
+     */
+    private void servePage(HttpExchange exchange, boolean text) throws IOException {
+        GameSession session = sessionFor(exchange);
+        if (session == null) return;
+        long sessionId = session.getId();
+        Room room;
+        byte[] player;
+        synchronized (session) {
+            RoomState state = engine.look(sessionId);
+            if (state == null) { // Ended as idle just as the player came back, so start them again
+                seeOther(exchange, text);
+                return;
+            }
+            room = state.getRoom();
+            List<String> notice = notices.remove(sessionId);
+            player = playerPart(sessionId, notice == null ? List.of() : notice, text)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] shared = text ? sharedPage(textRooms, room, true) : sharedPage(htmlRooms, room, false);
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", text ? "text/plain; charset=utf-8" : "text/html; charset=utf-8");
+        headers.set("Cache-Control", "no-store"); // The page changes with every move
+        exchange.sendResponseHeaders(200, shared.length + player.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(shared);
+        out.write(player);
+    }
+
+    /**
+     * Carries out a player's command, keeps what happened for the next page, and redirects back to the page.
+     *
+     * @param exchange The request and its response.
+     * @param path     The command path, such as {@code /go/2}, without the {@code /text} prefix.
+     * @param text     True to go back to the plain text page, false for HTML.
+     * @throws IOException If the response can't be written.
+     */
+    private void runCommand(HttpExchange exchange, String path, boolean text) throws IOException {
+        // The command is the first part of the path and its argument the rest
+        String command = path.substring(1);
+        int slash = command.indexOf('/');
+        String argument = slash < 0 ? "" : URLDecoder.decode(command.substring(slash + 1), StandardCharsets.UTF_8);
+        command = slash < 0 ? command : command.substring(0, slash);
+        if (!List.of("go", "take", "open", "use").contains(command)) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        GameSession session = sessionFor(exchange);
+        if (session == null) return;
+        long sessionId = session.getId();
+        synchronized (session) {
+            RoomState state = engine.look(sessionId);
+            if (state == null) {
+                seeOther(exchange, text);
+                return;
+            }
+            List<String> notice = new ArrayList<>();
+            switch (command) {
+                case "go":
+                    int exitIndex = parseIndex(argument);
+                    Room room = state.getRoom();
+                    RoomState next = engine.move(sessionId, exitIndex);
+                    if (next != null) {
+                        for (Trigger trigger : next.getFired()) { // Only a move fires anything
+                            String happening = describe(trigger);
+                            if (happening != null) {
+                                notice.add(happening);
+                            }
+                        }
+                    } else if (engine.isLocked(sessionId, exitIndex)) {
+                        notice.add("The way to the " + room.getExits()[exitIndex] + " is locked.");
+                    } else {
+                        notice.add("There is no such exit.");
+                    }
+                    break;
+                case "take":
+                    notice.add(engine.take(sessionId, argument).describe(argument));
+                    break;
+                case "open":
+                    List<Fixture> opened = new ArrayList<>();
+                    notice.add(engine.open(sessionId, argument, opened).describe(argument));
+                    describe(opened, notice);
+                    break;
+                default:
+                    List<Fixture> unlocked = new ArrayList<>();
+                    notice.add(engine.use(sessionId, argument, unlocked).describe(argument));
+                    describe(unlocked, notice);
+                    break;
+            }
+            notices.put(sessionId, notice); // Replaces anything the player didn't look at
+        }
+        seeOther(exchange, text);
+    }
+
+    /**
+     * Redirects the browser to look at the room's page, so reloading it doesn't repeat the command.
+     */
+    private static void seeOther(HttpExchange exchange, boolean text) throws IOException {
+        exchange.getResponseHeaders().set("Location", text ? TEXT_PREFIX + "/" : "/");
+        exchange.sendResponseHeaders(303, -1);
+    }
+
+    private static int parseIndex(String argument) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Finds the session named by the request's session cookie, or starts a new one and sets the cookie.  If too
+     * many sessions have been started in the last minute, it answers 503 instead.
+     *
+     * @param exchange The request and its response.
+     * @return The player's session, or null if the request has been answered.
+     * @throws IOException If the response can't be written.
+     */
+    private GameSession sessionFor(HttpExchange exchange) throws IOException {
+        long sessionId = tokens.redeem(sessionCookie(exchange));
+        GameSession session = sessionId < 0 ? null : engine.getSession(sessionId);
+        if (session == null) {
+            if (!allowNewSession()) {
+                exchange.getResponseHeaders().set("Retry-After", "60");
+                exchange.sendResponseHeaders(503, -1);
+                return null;
+            }
+            sessionId = nextSessionId.getAndIncrement();
+            engine.startSession(sessionId);
+            session = engine.getSession(sessionId);
+            exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + tokens.issue(sessionId)
+                    + "; Path=/; Max-Age=31536000; HttpOnly; SameSite=Lax");
+        }
+        return session;
+    }
+
+    /**
+     * Counts a new session against this minute's allowance.
+     *
+     * @return True if the session may be started.
+     */
+    private synchronized boolean allowNewSession() {
+        long now = System.nanoTime();
+        if (now - sessionWindowStart >= SESSION_WINDOW_NANOS) {
+            sessionWindowStart = now;
+            sessionsInWindow = 0;
+        }
+        if (sessionsInWindow >= maxNewSessions) return false;
+        sessionsInWindow++;
+        return true;
+    }
+
+    /**
+     * Gets the request's session cookie.
+     *
+     * @return The token in the cookie, or null if the request has no session cookie.
+     */
+    private static String sessionCookie(HttpExchange exchange) {
+        for (String header : exchange.getRequestHeaders().getOrDefault("Cookie", List.of())) {
+            for (String cookie : header.split(";")) {
+                int equals = cookie.indexOf('=');
+                if (equals > 0 && cookie.substring(0, equals).trim().equals(SESSION_COOKIE)) {
+                    return cookie.substring(equals + 1).trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the part of a room's page that is the same for every player, encoding it the first time it's needed.
+     *
+     * @param cache The cache of encoded pages for the format, by room ID.
+     * @param room  The room.
+     * @param text  True for plain text, false for HTML.
+     * @return The UTF-8 bytes of the page, which must not be changed.
+     */
+    private byte[] sharedPage(AtomicReferenceArray<byte[]> cache, Room room, boolean text) {
+        byte[] page = cache.get(room.getId());
+        if (page == null) {
+            // Two players racing to the same new room both encode it, and either copy will do
+            page = (text ? textRoom(room) : htmlRoom(room)).getBytes(StandardCharsets.UTF_8);
+            cache.set(room.getId(), page);
+        }
+        return page;
+    }
+
+    /**
+     * Writes the shared part of a room's HTML page.
+     */
+    private String htmlRoom(Room room) {
+        String name = escape(room.getName());
+        StringBuilder page = new StringBuilder(room.getDescription().length() + 1024);
+        page.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>").append(name)
+                .append("</title></head>\n<body style=\"background:black;color:yellow;font-family:sans-serif;"
+                        + "max-width:60em;margin:auto\">\n<h1 style=\"color:white\">").append(name).append("</h1>\n");
+        String imagePath = room.getImagePath();
+        if (imagePath != null) {
+            page.append("<img src=\"").append(IMAGE_PREFIX).append(escape(fileNameOf(imagePath)))
+                    .append("\" alt=\"").append(name).append("\" style=\"max-width:100%\">\n");
+        }
+        for (String paragraph : room.getDescription().split("\n")) {
+            if (!paragraph.isBlank()) {
+                page.append("<p>").append(escape(paragraph.strip())).append("</p>\n");
+            }
+        }
+        page.append("<p>Exits:");
+        String[] exits = room.getExits();
+        for (int i = 0; i < exits.length; i++) {
+            button(page, "/go/" + i, exits[i]);
+        }
+        return page.append("</p>\n").toString();
+    }
+
+    /**
+     * Writes the shared part of a room's plain text page.
+     */
+    private static String textRoom(Room room) {
+        StringBuilder page = new StringBuilder(room.getDescription().length() + 256);
+        page.append("== ").append(room.getName()).append(" ==\n\n");
+        for (String paragraph : room.getDescription().split("\n")) {
+            if (!paragraph.isBlank()) {
+                page.append(paragraph.strip()).append("\n\n");
+            }
+        }
+        page.append("Exits:\n");
+        String[] exits = room.getExits();
+        for (int i = 0; i < exits.length; i++) {
+            page.append("  POST ").append(TEXT_PREFIX).append("/go/").append(i).append("  ").append(exits[i])
+                    .append('\n');
+        }
+        return page.toString();
+    }
+
+    /**
+     * Writes the part of a page that is only about one player: what happened since they last looked, and what they
+     * can take, open and use.
+     *
+     * @param sessionId The player's session ID.
+     * @param notice    What happened to the player's last command, if they haven't seen it yet.
+     * @param text      True for plain text, false for HTML.
+     * @return The end of the page.
+     */
+    private String playerPart(long sessionId, List<String> notice, boolean text) {
+        StringBuilder part = new StringBuilder(256);
+        for (String happening : notice) {
+            line(part, happening, text);
+        }
+
+        actions(part, "You see", "take", namesOf(engine.getItemsHere(sessionId)), text);
+        Fixture[] closed = engine.getClosedFixturesHere(sessionId);
+        String[] fixtureNames = new String[closed.length];
+        for (int i = 0; i < closed.length; i++) {
+            fixtureNames[i] = closed[i].getName();
+        }
+        actions(part, "You could open", "open", fixtureNames, text);
+        actions(part, "You carry", "use", namesOf(engine.getInventory(sessionId)), text);
+
+        if (!text) {
+            part.append("<p><small><a style=\"color:gray\" href=\"").append(TEXT_PREFIX)
+                    .append("/\">Text only</a></small></p>\n</body></html>\n");
+        }
+        return part.toString();
+    }
+
+    private static String[] namesOf(Item[] items) {
+        String[] names = new String[items.length];
+        for (int i = 0; i < items.length; i++) {
+            names[i] = items[i].getName();
+        }
+        return names;
+    }
+
+    /**
+     * Writes a list of things the player can act on, each with the button that does it.
+     */
+    private static void actions(StringBuilder part, String heading, String command, String[] names, boolean text) {
+        if (names.length == 0) return;
+        if (text) {
+            part.append(heading).append(":\n");
+            for (int i = 0; i < names.length; i++) {
+                part.append("  POST ").append(TEXT_PREFIX).append('/').append(command).append('/')
+                        .append(URLEncoder.encode(names[i], StandardCharsets.UTF_8)).append("  ").append(names[i])
+                        .append('\n');
+            }
+            return;
+        }
+        part.append("<p>").append(heading).append(':');
+        for (int i = 0; i < names.length; i++) {
+            button(part, "/" + command + "/" + URLEncoder.encode(names[i], StandardCharsets.UTF_8), names[i]);
+        }
+        part.append("</p>\n");
+    }
+
+    /**
+     * Writes a button that POSTs a command, so following links never changes the game.
+     */
+    private static void button(StringBuilder page, String action, String label) {
+        page.append(" <form method=\"post\" action=\"").append(escape(action))
+                .append("\" style=\"display:inline\"><button style=\"background:black;color:white;"
+                        + "border:1px solid gray\">").append(escape(label)).append("</button></form>");
+    }
+
+    private static void line(StringBuilder part, String line, boolean text) {
+        if (text) {
+            part.append("* ").append(line).append('\n');
+        } else {
+            part.append("<p><em style=\"color:lightgray\">").append(escape(line)).append("</em></p>\n");
+        }
+    }
+
+    /**
+     * Adds what the player finds in the fixtures they opened.
+     */
+    private static void describe(List<Fixture> opened, List<String> notice) {
+        for (Fixture fixture : opened) {
+            if (fixture.getDescription() != null) {
+                notice.add(fixture.getDescription());
+            }
+        }
+    }
+
+    /**
+     * Puts a room effect into words, since the web page can't play it.
+     *
+     * @param trigger The trigger that fired.
+     * @return What the player notices, or null for an effect with nothing to say.
+     */
+    static String describe(Trigger trigger) {
+        switch (trigger.getEffect()) {
+            case LIGHTS_FLICKER:
+                return "The lights flicker.";
+            case APPARITION:
+                String type = trigger.getArgument() == null ? "ghost" : trigger.getArgument().toLowerCase(Locale.ROOT);
+                return "A " + type.replace('_', ' ') + " drifts past you and fades away.";
+            case SOUND:
+                return "You hear something in the house.";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Serves one of the house's images, or an empty 304 if the browser already has the same image.
+     *
+     * @param exchange The request and its response.
+     * @param fileName The image's file name.
+     * @throws IOException If the response can't be written.
+     */
+    private void serveImage(HttpExchange exchange, String fileName) throws IOException {
+        String url = imageUrls.get(fileName);
+        Asset image = null;
+        if (url != null) {
+            try {
+                image = images.computeIfAbsent(fileName, name -> Asset.read(url));
+            } catch (UncheckedIOException e) {
+                System.err.println("Couldn't read " + url + ": " + e.getMessage());
+            }
+        }
+        if (image == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", image.etag);
+        headers.set("Cache-Control", IMAGE_CACHE_CONTROL);
+        String known = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (known != null && (known.contains(image.etag) || known.trim().equals("*"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        headers.set("Content-Type", image.contentType);
+        exchange.sendResponseHeaders(200, image.bytes.length);
+        exchange.getResponseBody().write(image.bytes);
+    }
+
+    private static String fileNameOf(String imagePath) {
+        return imagePath.substring(imagePath.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Escapes text for use in HTML, inside elements or quoted attributes.
+     *
+     * @param text The text.
+     * @return The escaped text.
+     */
+    static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity = c == '&' ? "&amp;" : c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '"' ? "&quot;" : null;
+            if (entity != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (entity != null) {
+                    escaped.append(entity);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+
+    /**
+     * An image read into memory, with the ETag that changes if its bytes do.
+     */
+    private static final class Asset {
+        private final byte[] bytes;
+        private final String etag;
+        private final String contentType;
+
+        private Asset(byte[] bytes, String etag, String contentType) {
+            this.bytes = bytes;
+            this.etag = etag;
+            this.contentType = contentType;
+        }
+
+        /**
+         * Reads an image from its URL.
+         *
+         * @throws UncheckedIOException If the image can't be read.
+         */
+        static Asset read(String url) {
+            byte[] bytes;
+            try (InputStream in = new URL(url).openStream()) {
+                bytes = in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(bytes.length) + "\"";
+            String lower = url.toLowerCase(Locale.ROOT);
+            String contentType = lower.endsWith(".png") ? "image/png"
+                    : lower.endsWith(".jpg") || lower.endsWith(".jpeg") ? "image/jpeg"
+                    : lower.endsWith(".gif") ? "image/gif" : "application/octet-stream";
+            return new Asset(bytes, etag, contentType);
+        }
+    }
+
+    /**
+     * The main method to start the web server.  Sessions are saved like the {@link GameServer}'s, in
+     * {@code saves/web} unless the haunted.saveDir system property names another folder.
+     *
+     * @param args Command-line arguments: an optional port number, 4080 by default.
+     * @throws IOException If the house or the saved sessions can't be loaded, or the port can't be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameEngine engine = GameEngine.loadDefault();
+        SessionTokens tokens = GameServer.saveSessions(engine, DEFAULT_SAVE_DIR);
+        WebServer server = new WebServer(engine, port, tokens);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "web-server-stopper"));
+        server.start();
+    }
+}